@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 基准测试语料，合成语料与真实语料共用同一套输入，保证lex01和lex02在相同输入上对比
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 3:20 下午
+ */
+public enum Corpus {
+    /**
+     * 单条语句
+     */
+    STATEMENT(0),
+    /**
+     * 约64KB的合成语料
+     */
+    SMALL(64 * 1024),
+    /**
+     * 约1MB的合成语料
+     */
+    MEDIUM(1024 * 1024),
+    /**
+     * 约8MB的合成语料
+     */
+    LARGE(8 * 1024 * 1024),
+    /**
+     * 真实语料，默认读取内置的corpus/sample.txt，可通过-Dlex.corpus=<path>指定外部文件
+     */
+    SAMPLE(-1);
+
+    private static final String[] STATEMENTS = {
+            "int v%d = %d;",
+            "boolean b%d = true;",
+            "boolean b%d = false;",
+            "String s%d = \"Hello World %d\";",
+            "v%d += %d;",
+            "v%d -= %d;",
+            "v%d *= %d;",
+            "v%d /= %d;",
+            "boolean c%d = v1 <= %d;",
+            "boolean c%d = v1 >= %d;",
+            "boolean c%d = v1 == %d;",
+            "int t%d = v1 + %d - v2 * 3 / 4;"
+    };
+    private final int size;
+
+    Corpus(int size) {
+        this.size = size;
+    }
+
+    /**
+     * 生成语料内容
+     *
+     * @return
+     * @throws IOException
+     */
+    public String load() throws IOException {
+        if (size == 0) return "int v1 = 100;";
+        if (size < 0) return readSample();
+        var random = new Random(size);//固定种子，保证每次生成的语料一致
+        var builder = new StringBuilder(size + 64);
+        for (int i = 0; builder.length() < size; i++) {
+            var statement = STATEMENTS[random.nextInt(STATEMENTS.length)];
+            builder.append(String.format(statement, i, random.nextInt(100000))).append(' ');
+        }
+        return builder.toString();
+    }
+
+    private static String readSample() throws IOException {
+        var path = System.getProperty("lex.corpus");
+        if (Objects.nonNull(path)) return Files.readString(Path.of(path), StandardCharsets.UTF_8);
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/sample.txt")) {
+            Objects.requireNonNull(in, "corpus/sample.txt");
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lex01(符号表驱动)与lex02(State枚举DFA)的吞吐量与内存分配对比
+ * <p>
+ * 运行方式: mvn -P benchmark package && java -jar target/benchmarks.jar -prof gc
+ * <p>
+ * tokens/bytes两个辅助计数器分别给出每秒Token数与每秒字节数，
+ * 每个Token的分配字节数 = gc.alloc.rate.norm / tokens每次调用的数量
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 3:20 下午
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+    @Param({"STATEMENT", "SMALL", "MEDIUM", "LARGE", "SAMPLE"})
+    public Corpus corpus;
+    private String source;
+    /**
+     * 由词法规则生成的最小化DFA
+     */
+    private com.github.tools.lex03.Dfa dfa;
+    /**
+     * lex01预先序列化的Token序列
+     */
+    private ByteBuffer serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        source = corpus.load();
+        dfa = com.github.tools.lex03.Dfa.generate(com.github.tools.lex03.Spec.standard());
+        serialized = com.github.tools.lex01.TokenWriter.encode(
+                com.github.tools.lex01.Lexer.newLexer(source).tokenize(), source);
+    }
+
+    /**
+     * 辅助计数器，JMH会将其换算成每秒的速率
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long tokens;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public void lex01(Counters counters, Blackhole blackhole) {
+        var lexer = com.github.tools.lex01.Lexer.newLexer(source);
+        long tokens = 0;
+        while (true) {
+            var token = lexer.nextToken();
+            if (Objects.isNull(token)) break;
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += source.length();
+    }
+
+    /**
+     * 结构数组输出模式
+     */
+    @Benchmark
+    public void lex01Buffer(Counters counters, Blackhole blackhole) {
+        var buffer = com.github.tools.lex01.Lexer.newLexer(source).tokenize();
+        blackhole.consume(buffer);
+        counters.tokens += buffer.size();
+        counters.bytes += source.length();
+    }
+
+    /**
+     * 回调输出模式，没有监听者时不产生任何Token对象
+     */
+    @Benchmark
+    public void lex01Sink(Counters counters) {
+        counters.tokens += com.github.tools.lex01.Lexer.newLexer(source).lex(com.github.tools.lex01.TokenSink.NONE);
+        counters.bytes += source.length();
+    }
+
+    /**
+     * 直接读取序列化的Token序列，与重新词法分析对比
+     */
+    @Benchmark
+    public void lex01Read(Counters counters, Blackhole blackhole) {
+        var reader = com.github.tools.lex01.TokenReader.of(serialized);
+        long tokens = 0;
+        while (reader.next()) {
+            blackhole.consume(reader.start());
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += source.length();
+    }
+
+    @Benchmark
+    public void lex02(Counters counters, Blackhole blackhole) {
+        var lexer = com.github.tools.lex02.Lexer.newLexer(source);
+        long tokens = 0;
+        while (true) {
+            var token = lexer.nextToken();
+            if (Objects.isNull(token)) break;
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += source.length();
+    }
+
+    @Benchmark
+    public void lex03(Counters counters, Blackhole blackhole) {
+        var lexer = com.github.tools.lex03.Lexer.newLexer(dfa, source);
+        long tokens = 0;
+        while (true) {
+            var token = lexer.nextToken();
+            if (Objects.isNull(token)) break;
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += source.length();
+    }
+
+    /**
+     * 执行由DFA编译生成的字节码
+     */
+    @Benchmark
+    public void lex03Compiled(Counters counters, Blackhole blackhole) {
+        var lexer = com.github.tools.lex03.Lexer.newLexer(dfa, source, com.github.tools.lex03.Lexer.Mode.COMPILED);
+        long tokens = 0;
+        while (true) {
+            var token = lexer.nextToken();
+            if (Objects.isNull(token)) break;
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += source.length();
+    }
+}
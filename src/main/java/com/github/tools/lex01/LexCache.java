@@ -0,0 +1,355 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以文件内容哈希为键的词法分析缓存，内容未变化的文件无需重新解析。
+ * <p>
+ * 分为两级: 内存中按字节数限制容量、按LRU淘汰的热点缓存，以及磁盘上按TokenWriter格式保存的Token序列，
+ * 磁盘命中时以内存映射的方式打开，按需换页。缓存目录按词法规则的版本划分，Lexer.VERSION、TokenKind或序列化格式变化后旧的缓存自动失效。
+ * 另外维护一个路径到(大小, 修改时间, 内容哈希)的索引，大小和修改时间都未变化的文件连内容都不需要读取。
+ * <p>
+ * 文件以错误恢复模式解析，词法错误记录为ERROR类型的Token，诊断信息保存在缓存文件的头部，命中缓存时同样可以取回
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 8:10 上午
+ */
+public class LexCache implements AutoCloseable {
+    /**
+     * 当前词法规则的版本
+     */
+    static final int SPEC_VERSION = specVersion(Lexer.VERSION);
+    /**
+     * 缓存文件布局的版本，即诊断信息头部加TokenWriter格式的Token序列
+     */
+    static final byte VERSION = 1;
+    /**
+     * 每条诊断信息在缓存文件中占用的字节数: 类型、偏移量、长度
+     */
+    private static final int DIAGNOSTIC_BYTES = Byte.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String INDEX = "index";
+    private static Logger log = LoggerFactory.getLogger(LexCache.class);
+    private final Path directory;
+    /**
+     * 路径到文件状态的索引，关闭时持久化
+     */
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    /**
+     * 内存中的热点缓存，访问顺序即LRU顺序
+     */
+    private final LinkedHashMap<Long, ByteBuffer> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final long memoryLimit;
+    private long memorySize;
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public LexCache(Path directory) throws IOException {
+        this(directory, 64L << 20);
+    }
+
+    /**
+     * @param directory   缓存目录
+     * @param memoryLimit 内存缓存的字节数上限
+     * @throws IOException
+     */
+    public LexCache(Path directory, long memoryLimit) throws IOException {
+        this(directory, memoryLimit, Lexer.VERSION);
+    }
+
+    /**
+     * @param directory    缓存目录
+     * @param memoryLimit  内存缓存的字节数上限
+     * @param lexerVersion 词法行为的版本，正常使用时即Lexer.VERSION
+     * @throws IOException
+     */
+    LexCache(Path directory, long memoryLimit, int lexerVersion) throws IOException {
+        Objects.requireNonNull(directory);
+        if (memoryLimit < 0) throw new IllegalArgumentException(String.format("memoryLimit:%s", memoryLimit));
+        this.directory = Files.createDirectories(directory.resolve(String.format("%08x", specVersion(lexerVersion))));
+        this.memoryLimit = memoryLimit;
+        loadIndex();
+    }
+
+    /**
+     * 词法规则的版本，由词法行为的版本、序列化格式和缓存文件布局的版本号，以及所有TokenKind的名称及顺序计算得到
+     *
+     * @param lexerVersion
+     * @return
+     */
+    static int specVersion(int lexerVersion) {
+        return ((Arrays.toString(Lexer.TokenKind.values()).hashCode() * 31 + TokenWriter.VERSION) * 31 + VERSION) * 31 + lexerVersion;
+    }
+
+    /**
+     * 获取文件的Token序列，依次查找内存缓存、磁盘缓存，都未命中时才读取并解析文件
+     *
+     * @param path
+     * @return 每次调用都返回独立的读取游标，词法错误记录为ERROR类型的Token
+     * @throws IOException
+     */
+    public TokenReader lex(Path path) throws IOException {
+        return lex(path, null);
+    }
+
+    /**
+     * 与lex(Path)相同，同时取回文件的诊断信息
+     *
+     * @param path
+     * @param diagnostics 追加文件的诊断信息，为null时忽略
+     * @return
+     * @throws IOException
+     */
+    public TokenReader lex(Path path, Lexer.Diagnostics diagnostics) throws IOException {
+        var key = path.toAbsolutePath().normalize().toString();
+        var size = Files.size(path);
+        var modified = Files.getLastModifiedTime(path).toMillis();
+        var entry = index.get(key);
+        if (Objects.nonNull(entry) && entry.size == size && entry.modified == modified) {
+            var buffer = load(entry.hash);
+            if (Objects.nonNull(buffer)) return open(buffer, diagnostics);
+        }
+        var bytes = Files.readAllBytes(path);
+        var hash = hash(bytes);
+        var buffer = load(hash);
+        if (Objects.isNull(buffer)) {
+            misses.increment();
+            buffer = encode(new String(bytes, StandardCharsets.UTF_8));
+            store(hash, buffer);
+        }
+        index.put(key, new Entry(size, modified, hash));//缓存文件写入成功后才更新索引
+        return open(buffer, diagnostics);
+    }
+
+    /**
+     * 以错误恢复模式解析，诊断信息写在Token序列之前
+     *
+     * @param source
+     * @return
+     */
+    private static ByteBuffer encode(String source) {
+        var diagnostics = new Lexer.Diagnostics();
+        var tokens = TokenWriter.encode(Lexer.newLexer(source).recover(diagnostics).tokenize(), source);
+        var buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + diagnostics.size() * DIAGNOSTIC_BYTES + tokens.remaining());
+        buffer.putInt(diagnostics.size()).putLong(diagnostics.dropped());
+        for (var i = 0; i < diagnostics.size(); i++) {
+            buffer.put((byte) diagnostics.code(i).ordinal()).putLong(diagnostics.offset(i)).putInt(diagnostics.length(i));
+        }
+        return buffer.put(tokens).flip();
+    }
+
+    /**
+     * 读出缓存文件头部的诊断信息，返回其后Token序列的读取游标
+     *
+     * @param buffer
+     * @param diagnostics 为null时跳过诊断信息
+     * @return
+     */
+    private static TokenReader open(ByteBuffer buffer, Lexer.Diagnostics diagnostics) {
+        var data = buffer.duplicate();
+        var size = data.getInt();
+        var dropped = data.getLong();
+        if (Objects.isNull(diagnostics)) {
+            data.position(data.position() + size * DIAGNOSTIC_BYTES);
+        } else {
+            var codes = Lexer.Diagnostics.Code.values();
+            for (var i = 0; i < size; i++) {
+                diagnostics.add(codes[data.get()], data.getLong(), data.getInt());
+            }
+            diagnostics.drop(dropped);
+        }
+        return TokenReader.of(data);
+    }
+
+    /**
+     * 依次查找内存缓存和磁盘缓存
+     *
+     * @param hash
+     * @return 都未命中时返回null
+     * @throws IOException
+     */
+    private ByteBuffer load(long hash) throws IOException {
+        synchronized (memory) {
+            var buffer = memory.get(hash);
+            if (Objects.nonNull(buffer)) {
+                memoryHits.increment();
+                return buffer;
+            }
+        }
+        var file = file(hash);
+        if (!Files.exists(file)) return null;
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        diskHits.increment();
+        cache(hash, buffer);
+        return buffer;
+    }
+
+    /**
+     * 写入磁盘缓存，先写临时文件再原子地重命名，其他进程不会读到写了一半的文件
+     *
+     * @param hash
+     * @param buffer
+     * @throws IOException
+     */
+    private void store(long hash, ByteBuffer buffer) throws IOException {
+        var temp = Files.createTempFile(directory, null, ".tmp");
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                var data = buffer.duplicate();
+                while (data.hasRemaining()) channel.write(data);
+            }
+            Files.move(temp, file(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        cache(hash, buffer);
+    }
+
+    private void cache(long hash, ByteBuffer buffer) {
+        if (buffer.capacity() > memoryLimit) return;
+        synchronized (memory) {
+            var old = memory.put(hash, buffer);
+            memorySize += buffer.capacity() - (Objects.isNull(old) ? 0 : old.capacity());
+            for (var iterator = memory.values().iterator(); memorySize > memoryLimit; ) {
+                memorySize -= iterator.next().capacity();
+                iterator.remove();
+            }
+        }
+    }
+
+    private Path file(long hash) {
+        return directory.resolve(String.format("%016x.tok", hash));
+    }
+
+    /**
+     * 持久化文件索引
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        var temp = Files.createTempFile(directory, null, ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                var entries = Map.copyOf(index);
+                out.writeInt(entries.size());
+                for (var entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().size);
+                    out.writeLong(entry.getValue().modified);
+                    out.writeLong(entry.getValue().hash);
+                }
+            }
+            Files.move(temp, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        var file = directory.resolve(INDEX);
+        if (!Files.exists(file)) return;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (var i = in.readInt(); i > 0; i--) {
+                index.put(in.readUTF(), new Entry(in.readLong(), in.readLong(), in.readLong()));
+            }
+        } catch (EOFException e) {
+            log.warn("index is truncated, ignored:{}", file);
+            index.clear();
+        }
+    }
+
+    /**
+     * 64位的内容哈希，每次处理8个字节，混合函数取自MurmurHash3
+     *
+     * @param bytes
+     * @return
+     */
+    static long hash(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        var h = bytes.length * 0x9E3779B97F4A7C15L;
+        while (buffer.remaining() >= Long.BYTES) {
+            h = Long.rotateLeft(h ^ mix(buffer.getLong()), 27) * 5 + 0x52DCE729;
+        }
+        var tail = 0L;
+        for (var shift = 0; buffer.hasRemaining(); shift += 8) tail |= (buffer.get() & 0xFFL) << shift;
+        h ^= mix(tail);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+
+    private static long mix(long k) {
+        return Long.rotateLeft(k * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+    }
+
+    public long memoryHits() {
+        return memoryHits.sum();
+    }
+
+    public long diskHits() {
+        return diskHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LexCache{memoryHits:%s, diskHits:%s, misses:%s}", memoryHits(), diskHits(), misses());
+    }
+
+    /**
+     * 索引中记录的文件状态
+     */
+    private static class Entry {
+        private final long size;
+        private final long modified;
+        private final long hash;
+
+        private Entry(long size, long modified, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 批量词法分析服务，在固定大小的线程池中并发读取并解析文件。
+ * 每个工作线程持有一个可复用的词法分析器及读取缓冲区，所有工作线程共享同一个符号表
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 3:05 上午
+ */
+public class LexService implements AutoCloseable {
+    /**
+     * 同时处理中及已完成未被消费的文件数量上限
+     */
+    private final int concurrency;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers;
+
+    public LexService(int concurrency) {
+        this(concurrency, new Lexer.SymbolTable());
+    }
+
+    /**
+     * @param concurrency 并发上限，同时也是工作线程数
+     * @param symbolTable 所有文件共享的符号表
+     */
+    public LexService(int concurrency, Lexer.SymbolTable symbolTable) {
+        if (concurrency < 1) throw new IllegalArgumentException(String.format("concurrency:%s", concurrency));
+        Objects.requireNonNull(symbolTable);
+        this.concurrency = concurrency;
+        var ids = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            var thread = new Thread(runnable, "lex-service-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers = ThreadLocal.withInitial(() -> new Worker(Lexer.newLexer(LexerSpec.DEFAULT, symbolTable)));
+    }
+
+    /**
+     * 解析所有文件，结果按完成顺序返回。只有消费方取走结果后才会提交新的文件，
+     * 消费方处理缓慢时读取和解析也会随之暂停
+     *
+     * @param paths
+     * @return
+     */
+    public Stream<Result> lexAll(Collection<Path> paths) {
+        Objects.requireNonNull(paths);
+        return StreamSupport.stream(Spliterators.spliterator(new Results(paths.iterator()), paths.size(),
+                Spliterator.NONNULL | Spliterator.SIZED), false);
+    }
+
+    /**
+     * 关闭服务，已提交的文件会继续解析完毕
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按完成顺序拉取结果的迭代器，处理中及待消费的文件数量不超过concurrency
+     */
+    private class Results implements Iterator<Result> {
+        private final Iterator<Path> paths;
+        private final CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        private int pending;
+
+        private Results(Iterator<Path> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending < concurrency && paths.hasNext()) {
+                var path = paths.next();
+                completion.submit(() -> workers.get().lex(path));
+                pending++;
+            }
+            return pending > 0;
+        }
+
+        @Override
+        public Result next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            try {
+                var result = completion.take().get();
+                pending--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            } catch (ExecutionException e) {//Worker已捕获所有异常，不会走到这里
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 工作线程私有的词法分析器和缓冲区，在同一线程处理的文件之间复用
+     */
+    private static class Worker {
+        private final Lexer lexer;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer bytes = ByteBuffer.allocate(8192);
+        private CharBuffer chars = CharBuffer.allocate(8192);
+
+        private Worker(Lexer lexer) {
+            this.lexer = lexer;
+        }
+
+        private Result lex(Path path) {
+            try {
+                read(path);
+                var diagnostics = new Lexer.Diagnostics();
+                var tokens = lexer.reset(chars.array(), 0, chars.limit()).recover(diagnostics).tokenize();
+                return new Result(path, tokens, diagnostics, null);
+            } catch (IOException | RuntimeException e) {
+                return new Result(path, null, null, e);
+            }
+        }
+
+        /**
+         * 将文件按UTF-8解码到chars中
+         */
+        private void read(Path path) throws IOException {
+            try (var channel = FileChannel.open(path)) {
+                var size = Math.toIntExact(channel.size());
+                if (bytes.capacity() < size) bytes = ByteBuffer.allocate(Math.max(size, bytes.capacity() << 1));
+                if (chars.capacity() < size) chars = CharBuffer.allocate(Math.max(size, chars.capacity() << 1));
+                bytes.clear().limit(size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) ;
+                bytes.flip();
+            }
+            chars.clear();
+            decoder.reset().decode(bytes, chars, true);//UTF-8解码后的字符数不会超过字节数
+            decoder.flush(chars);
+            chars.flip();
+        }
+    }
+
+    /**
+     * 单个文件的解析结果
+     */
+    public static class Result {
+        private Path path;
+        private TokenBuffer tokens;
+        private Lexer.Diagnostics diagnostics;
+        /**
+         * 读取失败时的异常，成功时为null
+         */
+        private Exception error;
+
+        private Result(Path path, TokenBuffer tokens, Lexer.Diagnostics diagnostics, Exception error) {
+            this.path = path;
+            this.tokens = tokens;
+            this.diagnostics = diagnostics;
+            this.error = error;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public TokenBuffer getTokens() {
+            return tokens;
+        }
+
+        public Lexer.Diagnostics getDiagnostics() {
+            return diagnostics;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return Objects.isNull(error);
+        }
+    }
+}
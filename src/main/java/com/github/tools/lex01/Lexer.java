@@ -18,9 +18,17 @@ package com.github.tools.lex01;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 词法分析器
@@ -31,29 +39,82 @@ import java.util.stream.Stream;
  */
 public class Lexer {
     /**
-     * 符号表
+     * 词法行为的版本，Token的切分方式、类型、字面值的取值以及空白符和注释的处理发生任何变化时都必须递增，
+     * 否则LexCache会继续返回按旧规则缓存的Token序列
      */
-    private SymbolTable symbolTable;
+    public static final int VERSION = 4;
+    /**
+     * 预编译的词法规则，所有词法分析器共享
+     */
+    private LexerSpec spec;
     /**
-     * 所有保留字符号串的总长度,当词素的符号串长度>此值时，意味着这是一个标识符
+     * 符号表，可以在多个词法分析器之间共享
      */
-    private int maxLength;
+    private SymbolTable symbolTable;
     /**
-     * 源文件内容
+     * 源文件内容，流式读取时为固定大小的滑动窗口
      */
     private char[] codes;
+    /**
+     * codes中有效字符的数量
+     */
+    private int limit;
+    /**
+     * codes[0]在整个输入中的偏移量
+     */
+    private long base;
+    /**
+     * 流式读取的输入源，读取完毕或非流式读取时为null
+     */
+    private Reader reader;
     /**
      * 当前字符
      */
     private char ch;
     /**
-     * 词素缓存
+     * 词素在源文件中的起始索引
+     */
+    private int pos;
+    /**
+     * 词素长度
+     */
+    private int length;
+    /**
+     * 词素的哈希值，在读入字符的同时增量计算
+     */
+    private int hash;
+    /**
+     * 查询符号表时复用的探针，命中时无需为词素分配内存
      */
-    private char[] sbuf;
+    private Chars probe;
+    /**
+     * 最近一次识别出的Token在codes中的起始索引
+     */
+    private int tokenPos;
+    /**
+     * 最近一次识别出的Token的长度
+     */
+    private int tokenLength;
+    /**
+     * 最近一次识别出的Token在符号表中的属性，保留字和操作符为null
+     */
+    private Attribute attribute;
+    /**
+     * 最近一次识别出的数字字面值，浮点数保存为IEEE 754的位模式
+     */
+    private long value;
     /**
      * 文件索引
      */
     private int index;
+    /**
+     * 错误恢复模式下收集诊断信息，为null时遇到词法错误直接抛出异常
+     */
+    private Diagnostics diagnostics;
+    /**
+     * 是否为Token记录前导及尾随的空白符和注释，关闭时直接跳过
+     */
+    private boolean trivia;
     /**
      * 结束符号
      */
@@ -67,33 +128,278 @@ public class Lexer {
      */
     private final byte CR = 0xD;
     /**
-     * 反向索引表,Attribute.flag对应TokenKin枚举ID
+     * 浮点数有效数字的累加上限，超出后的数字只影响指数，保证累加时不会溢出
      */
-    private Map<Integer, Integer> indexs;
+    private static final long MANTISSA_LIMIT = 100_000_000_000_000_000L;
+    /**
+     * double可以精确表示的10的幂
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
     private static Logger log = LoggerFactory.getLogger(Lexer.class);
+    private Lexer(LexerSpec spec, SymbolTable symbolTable) {
+        Objects.requireNonNull(spec);
+        Objects.requireNonNull(symbolTable);
+        this.spec = spec;
+        this.symbolTable = symbolTable;
+        codes = new char[]{EOI};
+        limit = codes.length;
+    }
+
+    private Lexer(String str, SymbolTable symbolTable) {
+        this(LexerSpec.DEFAULT, symbolTable);
+        reset(str);
+    }
+
+    private Lexer(Reader reader, int bufferSize, SymbolTable symbolTable) {
+        this(LexerSpec.DEFAULT, symbolTable);
+        Objects.requireNonNull(reader);
+        if (bufferSize < 2) throw new IllegalArgumentException(String.format("bufferSize:%s", bufferSize));
+        this.reader = reader;
+        codes = new char[bufferSize];
+        limit = 0;
+    }
+
+    /**
+     * 创建并初始化一个词法分析器
+     *
+     * @param str
+     * @return
+     */
+    public static Lexer newLexer(String str) {
+        return newLexer(str, new SymbolTable());
+    }
+
+    /**
+     * 创建一个使用指定符号表的词法分析器，多个线程中的词法分析器可以共享同一个符号表
+     *
+     * @param str
+     * @param symbolTable
+     * @return
+     */
+    public static Lexer newLexer(String str, SymbolTable symbolTable) {
+        return new Lexer(str, symbolTable).init();
+    }
+
+    /**
+     * 创建一个可复用的词法分析器，通过reset(input)设置输入，每个线程持有一个实例即可
+     *
+     * @param spec
+     * @param symbolTable
+     * @return
+     */
+    public static Lexer newLexer(LexerSpec spec, SymbolTable symbolTable) {
+        return new Lexer(spec, symbolTable).init();
+    }
+
+    /**
+     * 创建一个流式读取的词法分析器，内存占用与输入大小无关
+     *
+     * @param reader      输入源，由调用方负责关闭
+     * @param bufferSize  滑动窗口大小，仅当单个词素超过窗口大小时才会扩容
+     * @param symbolTable
+     * @return
+     */
+    public static Lexer newLexer(Reader reader, int bufferSize, SymbolTable symbolTable) {
+        return new Lexer(reader, bufferSize, symbolTable).init();
+    }
+
+    public static Lexer newLexer(Reader reader, int bufferSize) {
+        return newLexer(reader, bufferSize, new SymbolTable());
+    }
+
+    public static Lexer newLexer(Reader reader) {
+        return newLexer(reader, 8192);
+    }
+
+    /**
+     * 创建一个流式读取的词法分析器，按UTF-8解码
+     *
+     * @param channel 输入源，由调用方负责关闭
+     * @return
+     */
+    public static Lexer newLexer(ReadableByteChannel channel) {
+        return newLexer(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
 
-    private Lexer(String str) {
+    /**
+     * 丢弃当前输入并改为读取str，容量足够时复用原有缓冲区，不会分配内存。
+     * reset后之前返回的Token不再有效
+     *
+     * @param str
+     * @return
+     */
+    public Lexer reset(String str) {
         Objects.requireNonNull(str);
-        codes = str.toCharArray();
-        codes = Arrays.copyOf(codes, codes.length + 1);
-        codes[codes.length - 1] = EOI;
-        symbolTable = new SymbolTable();
-        indexs = new ConcurrentHashMap<>();
+        str.getChars(0, str.length(), reserve(str.length()), 0);
+        return rewind(str.length());
+    }
+
+    /**
+     * 丢弃当前输入并改为读取chars中的一段区间，容量足够时复用原有缓冲区，不会分配内存。
+     * reset后之前返回的Token不再有效
+     *
+     * @param chars
+     * @param offset
+     * @param length
+     * @return
+     */
+    public Lexer reset(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        System.arraycopy(chars, offset, reserve(length), 0, length);
+        return rewind(length);
+    }
+
+    /**
+     * 确保缓冲区能容纳size个字符及结束符号
+     */
+    private char[] reserve(int size) {
+        if (codes.length <= size) codes = new char[Math.max(size + 1, codes.length << 1)];
+        return codes;
+    }
+
+    private Lexer rewind(int size) {
+        codes[size] = EOI;
+        limit = size + 1;
+        base = 0;
+        reader = null;
+        index = 0;
+        length = 0;
+        ch = 0;
+        attribute = null;
+        return this;
+    }
+
+    /**
+     * 开启错误恢复模式，遇到词法错误时不再抛出异常，而是记录诊断信息并返回ERROR类型的Token，
+     * 随后在下一个换行符或分号处重新同步
+     *
+     * @param diagnostics 诊断信息的收集容器，为null时关闭错误恢复模式
+     * @return
+     */
+    public Lexer recover(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        return this;
     }
 
     /**
-     * 读取下一个Token
+     * 开启后nextToken()返回记录了前导及尾随trivia(空白符和注释)区间的TriviaToken，供格式化工具还原源文件。
+     * 关闭时空白符和注释直接成段跳过，返回的Token也不包含trivia区间，没有额外开销
      *
+     * @param preserve
      * @return
      */
-    private Token nextToken() {
-        Token result = null;
+    public Lexer preserveTrivia(boolean preserve) {
+        this.trivia = preserve;
+        return this;
+    }
+
+    /**
+     * 读取下一个Token，当读入到结束符号时返回null
+     *
+     * @return
+     */
+    public Token nextToken() {
+        var leading = trivia ? base + index : 0;
+        var tokenKind = scan();
+        if (Objects.isNull(tokenKind)) return null;
+        char[] source;
+        var start = 0;
+        if (Objects.isNull(reader)) {
+            source = codes;
+            start = tokenPos;
+        } else if (Objects.nonNull(attribute)) {
+            //流式读取时窗口还会被复用，Token改为引用符号表或TokenKind中的词素，两者都没有时才拷贝
+            source = attribute.morpheme;
+        } else {
+            source = Objects.nonNull(tokenKind.morpheme) ? tokenKind.morpheme :
+                    Arrays.copyOfRange(codes, tokenPos, tokenPos + tokenLength);
+        }
+        if (!trivia) return new Token(attribute, tokenKind, source, start, base + tokenPos, tokenLength, value);
+        var token = new TriviaToken(attribute, tokenKind, source, start, base + tokenPos, tokenLength, value, leading);
+        skipTrailingTrivia();
+        token.trailingEnd = base + index;
+        return token;
+    }
+
+    /**
+     * 批量读取所有Token，以结构数组的形式写入TokenBuffer，不会为每个Token创建对象
+     *
+     * @param buffer
+     * @return
+     */
+    public TokenBuffer tokenize(TokenBuffer buffer) {
+        for (var tokenKind = scan(); Objects.nonNull(tokenKind); tokenKind = scan()) {
+            buffer.add(tokenKind, Math.toIntExact(base + tokenPos), tokenLength,
+                    Objects.isNull(attribute) ? TokenBuffer.NO_SYMBOL : attribute.id, value);
+        }
+        return buffer;
+    }
+
+    public TokenBuffer tokenize() {
+        return tokenize(new TokenBuffer());
+    }
+
+    /**
+     * 读取所有Token并逐个推送给回调，不会为每个Token创建对象
+     *
+     * @param sink
+     * @return Token数量
+     */
+    public long lex(TokenSink sink) {
+        Objects.requireNonNull(sink);
+        var count = 0L;
+        for (var tokenKind = scan(); Objects.nonNull(tokenKind); tokenKind = scan(), count++) {
+            sink.accept(tokenKind, base + tokenPos, tokenLength);
+        }
+        return count;
+    }
+
+    /**
+     * 以迭代器的形式按需读取Token，预读缓冲区默认可容纳4个Token
+     *
+     * @return
+     */
+    public TokenStream tokens() {
+        return tokens(4);
+    }
+
+    /**
+     * 以迭代器的形式按需读取Token
+     *
+     * @param lookahead 预读缓冲区的初始容量
+     * @return
+     */
+    public TokenStream tokens(int lookahead) {
+        return new TokenStream(this, lookahead);
+    }
+
+    /**
+     * 以惰性流的形式读取Token，短路操作结束后不会继续扫描剩余的输入
+     *
+     * @return
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tokens(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 识别下一个Token，Token的位置及属性记录在tokenPos、tokenLength和attribute中
+     *
+     * @return 读入到结束符号时返回null
+     */
+    private TokenKind scan() {
+        TokenKind result = null;
         loop:
         do {
             nextChar();
             //@formatter:off
             switch (ch) {
-                case ' ': case '\t':
+                case ' ': case '\t': case '\r': case '\n':
+                    skipBlank();
                     break;
                 case 'A': case 'B': case 'C': case 'D': case 'E':
                 case 'F': case 'G': case 'H': case 'I': case 'J':
@@ -118,18 +424,33 @@ public class Lexer {
                 case ';':
                     try {
                         addMorpheme();
-                        result = getToken();
+                        result = accept(TokenKind.SEMI);
                     } finally {
-                        sbuf = null;
+                        length = 0;
                     }
                     break loop;
                 case '\"':
                     result = scanString();
                     break loop;
+                case '/':
+                    nextChar();
+                    if (ch == '/') {
+                        skipLineComment();
+                        break;
+                    }
+                    if (ch == '*') {
+                        result = skipBlockComment();
+                        if (Objects.nonNull(result)) break loop;
+                        break;
+                    }
+                    prevChar();
+                    ch = '/';//不是注释，回退多读的字符后仍从'/'开始识别操作符
+                    result = scanOperator();
+                    break loop;
                 default:
-                    var token = scanOperator();
-                    if (Objects.nonNull(token)) {
-                        result = token;
+                    var tokenKind = scanOperator();
+                    if (Objects.nonNull(tokenKind)) {
+                        result = tokenKind;
                     }
                     break loop;
             }
@@ -143,21 +464,13 @@ public class Lexer {
      * @return
      */
     private void parse() {
-        while (true) {
-            var token = nextToken();
-            if (Objects.isNull(token)) break;
-            log.info("{}", token);
+        if (!log.isInfoEnabled()) {
+            lex(TokenSink.NONE);
+            return;
+        }
+        try (var sink = new LoggingTokenSink(log)) {
+            lex(sink);
         }
-    }
-
-    /**
-     * 根据flag获取TokenKin
-     *
-     * @param flag
-     * @return
-     */
-    private TokenKind getTokenKin(int flag) {
-        return flag <= maxLength ? TokenKind.values()[indexs.get(flag)] : TokenKind.IDENTIFIER;
     }
 
     /**
@@ -165,80 +478,281 @@ public class Lexer {
      *
      * @return
      */
-    private Token scanString() {
+    private TokenKind scanString() {
         do {
             addMorpheme();
             nextChar();
         } while (ch != '\"' && ch != CR && ch != LF && ch != EOI);
-        if (ch != '\"') throw new RuntimeException(String.format("词法解析错误:%s", new String(sbuf)));
+        if (ch != '\"') {
+            if (Objects.isNull(diagnostics)) throw new RuntimeException(String.format("词法解析错误:%s", new String(codes, pos, length)));
+            prevChar();//换行符留给下一次扫描
+            return error(Diagnostics.Code.UNTERMINATED_STRING);
+        }
         addMorpheme();
         try {
-            return getToken(TokenKind.STRINGLITERAL);
+            return accept(TokenKind.STRINGLITERAL);
         } finally {
-            sbuf = null;
+            length = 0;
         }
     }
 
     /**
-     * 读取一个完整的特殊符号Token
+     * 读取一个完整的特殊符号Token，沿操作符前缀树做最长匹配，不查询符号表也不分配内存
      */
-    private Token scanOperator() {
+    private TokenKind scanOperator() {
         if (ch == EOI) return null;
-        while (true) {
-            switch (ch) {
-                //@formatter:off
-                case '!': case '%': case '&': case '*':
-                case '?': case '+': case '-': case ':':
-                case '<': case '=': case '>': case '^':
-                case '|': case '~': case '@': case '/':
-                    break;
-                //@formatter:on
-                default:
-                    try {
-                        return getToken();
-                    } finally {
-                        prevChar();
-                        sbuf = null;
-                    }
-            }
+        var spec = this.spec;
+        var state = spec.nextOperator(LexerSpec.ROOT, ch);
+        if (state == LexerSpec.DEAD) {
+            if (Objects.isNull(diagnostics)) throw new RuntimeException(String.format("词法解析错误:%s", ch));
             addMorpheme();
-            var attribute = symbolTable.getAttribute(sbuf);
-            var tokenKind = getTokenKin(attribute.flag);
-            if (TokenKind.IDENTIFIER == tokenKind) {
-                try {
-                    sbuf = Arrays.copyOf(sbuf, sbuf.length - 1);
-                    return getToken();
-                } finally {
-                    prevChar();
-                    sbuf = null;
-                }
+            return skipToSync();
+        }
+        try {
+            while (true) {
+                addMorpheme();
+                nextChar();
+                var next = spec.nextOperator(state, ch);
+                if (next == LexerSpec.DEAD) break;
+                state = next;
             }
+            prevChar();//前缀树中每个状态都是接受状态，只需回退不匹配的这一个字符
+            return accept(spec.operator(state));
+        } finally {
+            length = 0;
+        }
+    }
+
+    /**
+     * 跳过非法字符直到下一个换行符、分号或结束符号，同步点本身留给下一次扫描
+     *
+     * @return
+     */
+    private TokenKind skipToSync() {
+        while (true) {
             nextChar();
+            if (ch == LF || ch == CR || ch == ';' || ch == EOI) break;
+            addMorpheme();
         }
+        prevChar();
+        return error(Diagnostics.Code.ILLEGAL_CHARACTER);
     }
 
     /**
-     * 读取一个完整的数字字面值Token
+     * 将当前词素记录为ERROR类型的Token，并记录一条诊断信息
+     *
+     * @param code
+     * @return
      */
-    private Token scanNumber() {
+    private TokenKind error(Diagnostics.Code code) {
+        diagnostics.add(code, base + pos, length);
+        attribute = null;
+        tokenPos = pos;
+        tokenLength = length;
+        length = 0;
+        return TokenKind.ERROR;
+    }
+
+    /**
+     * 读取一个完整的数字字面值Token，扫描的同时累加出数值，无需再从词素解析，
+     * 支持0x、0b、0开头的进制前缀、数字之间的下划线，以及带小数点和指数的浮点数。
+     * 0开头的数字要读完才知道是八进制整数还是浮点数，因此和十进制一起扫描
+     */
+    private TokenKind scanNumber() {
+        try {
+            var first = ch;
+            addMorpheme();
+            nextChar();
+            if (first == '0') {
+                if (ch == 'x' || ch == 'X') return scanRadix(4);
+                if (ch == 'b' || ch == 'B') return scanRadix(1);
+            }
+            return scanDecimal(first - '0');
+        } finally {
+            length = 0;
+        }
+    }
+
+    /**
+     * 读取十六进制或二进制的整数，每位数字通过移位累加，移出非0的高位即为溢出
+     *
+     * @param shift 每位数字的位数，十六进制为4，二进制为1
+     * @return
+     */
+    private TokenKind scanRadix(int shift) {
+        addMorpheme();//跳过x或b前缀
+        nextChar();
+        var radix = 1 << shift;
+        var value = 0L;
+        var digits = 0;
+        var last = ch;
+        var malformed = false;
+        var overflow = false;
         while (true) {
-            switch (ch) {
-                //@formatter:off
-                case '0': case '1': case '2': case '3': case '4':
-                case '5': case '6': case '7': case '8': case '9':
-                    break;
-                default:
-                   try{
-                       return getToken(TokenKind.INTLITERAL);
-                   }finally{
-                       prevChar();
-                       sbuf = null;
-                   }
-                //@formatter:on
+            var d = digit(ch, radix);
+            if (d >= 0) {
+                overflow |= value >>> (Long.SIZE - shift) != 0;
+                value = value << shift | d;
+                digits++;
+            } else if (ch >= '0' && ch <= '9') {
+                malformed = true;//二进制中出现2到9
+            } else if (ch == '_') {
+                malformed |= digits == 0;//下划线不能紧跟在前缀之后
+            } else {
+                break;
             }
+            last = ch;
             addMorpheme();
             nextChar();
         }
+        prevChar();
+        if (last == '_' || digits == 0) malformed = true;
+        if (malformed || overflow)
+            return numberError(malformed ? Diagnostics.Code.MALFORMED_NUMBER : Diagnostics.Code.NUMBER_OVERFLOW);
+        this.value = value;
+        return accept(TokenKind.INTLITERAL);
+    }
+
+    /**
+     * 读取十进制的整数或浮点数，进入时已读入第一位数字。
+     * 浮点数的有效数字不超过2^53且指数绝对值不超过22时，有效数字和10的幂都能被double精确表示，
+     * 一次乘除即可得到正确舍入的结果，其余情况交给Double.parseDouble()
+     *
+     * @param first
+     * @return
+     */
+    private TokenKind scanDecimal(int first) {
+        long value = first;
+        long mantissa = first;
+        var exponent = 0;
+        var exact = true;
+        var overflow = false;
+        var malformed = false;
+        var isFloat = false;
+        var last = ch;
+        for (; ch >= '0' && ch <= '9' || ch == '_'; last = ch, addMorpheme(), nextChar()) {
+            if (ch == '_') continue;
+            var d = ch - '0';
+            if (value > (Long.MAX_VALUE - d) / 10) overflow = true;
+            else value = value * 10 + d;
+            if (mantissa < MANTISSA_LIMIT) {
+                mantissa = mantissa * 10 + d;
+            } else {
+                exponent++;
+                exact &= d == 0;
+            }
+        }
+        if (last == '_') malformed = true;
+        if (ch == '.') {
+            isFloat = true;
+            last = ch;
+            addMorpheme();
+            nextChar();
+            for (; ch >= '0' && ch <= '9' || ch == '_'; last = ch, addMorpheme(), nextChar()) {
+                if (ch == '_') {
+                    malformed |= last == '.';
+                    continue;
+                }
+                var d = ch - '0';
+                if (mantissa < MANTISSA_LIMIT) {
+                    mantissa = mantissa * 10 + d;
+                    exponent--;
+                } else {
+                    exact &= d == 0;
+                }
+            }
+            if (last == '_') malformed = true;
+        }
+        if (ch == 'e' || ch == 'E') {
+            isFloat = true;
+            addMorpheme();
+            nextChar();
+            var negative = ch == '-';
+            if (ch == '+' || ch == '-') {
+                addMorpheme();
+                nextChar();
+            }
+            var exp = 0;
+            var digits = 0;
+            last = ch;
+            for (; ch >= '0' && ch <= '9' || ch == '_'; last = ch, addMorpheme(), nextChar()) {
+                if (ch == '_') {
+                    malformed |= digits == 0;
+                    continue;
+                }
+                exp = Math.min(exp * 10 + ch - '0', 100_000);//足以溢出为无穷大或0，避免int溢出
+                digits++;
+            }
+            if (digits == 0 || last == '_') malformed = true;
+            exponent += negative ? -exp : exp;
+        }
+        prevChar();
+        if (malformed) return numberError(Diagnostics.Code.MALFORMED_NUMBER);
+        if (!isFloat) {
+            if (first == 0 && length > 1) return octal();
+            if (overflow) return numberError(Diagnostics.Code.NUMBER_OVERFLOW);
+            this.value = value;
+            return accept(TokenKind.INTLITERAL);
+        }
+        double result;
+        if (exact && mantissa <= 1L << 53 && Math.abs(exponent) < POW10.length) {
+            result = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        } else {
+            result = Double.parseDouble(new String(codes, pos, length).replace("_", ""));
+        }
+        if (Double.isInfinite(result)) return numberError(Diagnostics.Code.NUMBER_OVERFLOW);
+        this.value = Double.doubleToRawLongBits(result);
+        return accept(TokenKind.FLOATLITERAL);
+    }
+
+    /**
+     * 0开头且没有小数点和指数的整数按八进制重新计算数值，词素已经完整地保存在缓冲区中
+     *
+     * @return
+     */
+    private TokenKind octal() {
+        var value = 0L;
+        var malformed = false;
+        var overflow = false;
+        for (int i = pos + 1, end = pos + length; i < end; i++) {
+            var c = codes[i];
+            if (c == '_') continue;
+            malformed |= c > '7';
+            overflow |= value >>> (Long.SIZE - 3) != 0;
+            value = value << 3 | c - '0';
+        }
+        if (malformed || overflow)
+            return numberError(malformed ? Diagnostics.Code.MALFORMED_NUMBER : Diagnostics.Code.NUMBER_OVERFLOW);
+        this.value = value;
+        return accept(TokenKind.INTLITERAL);
+    }
+
+    /**
+     * 数字字面值非法或溢出，错误恢复模式下记录为ERROR类型的Token
+     *
+     * @param code
+     * @return
+     */
+    private TokenKind numberError(Diagnostics.Code code) {
+        if (Objects.isNull(diagnostics))
+            throw new RuntimeException(String.format("词法解析错误:%s", new String(codes, pos, length)));
+        return error(code);
+    }
+
+    /**
+     * 返回字符在指定进制下的数值，不是该进制的数字时返回-1
+     *
+     * @param ch
+     * @param radix
+     * @return
+     */
+    private static int digit(char ch, int radix) {
+        int d;
+        if (ch >= '0' && ch <= '9') d = ch - '0';
+        else if (ch >= 'a' && ch <= 'f') d = ch - 'a' + 10;
+        else if (ch >= 'A' && ch <= 'F') d = ch - 'A' + 10;
+        else return -1;
+        return d < radix ? d : -1;
     }
 
     /**
@@ -246,73 +760,205 @@ public class Lexer {
      *
      * @return
      */
-    private Token scanIdent() {
+    private TokenKind scanIdent() {
+        try {
+            scanRun(LexerSpec.IDENT_PART);
+            var tokenKind = spec.lookup(codes, pos, length, hash);
+            return accept(Objects.isNull(tokenKind) ? TokenKind.IDENTIFIER : tokenKind);
+        } finally {
+            length = 0;
+        }
+    }
+
+    /**
+     * 成段跳过行注释，换行符留给下一次扫描
+     */
+    private void skipLineComment() {
         while (true) {
-            //@formatter:off
+            var i = index;
+            for (var lim = limit; i < lim; i++) {
+                var c = codes[i];
+                if (c == LF || c == CR || c == EOI) break;
+            }
+            index = i;
+            if (i < limit || Objects.isNull(reader)) return;
+            fill();
+        }
+    }
+
+    /**
+     * 成段跳过块注释，进入时已读入开头的"/*"。只在'*'处停下检查下一个字符是否为'/'，
+     * 未闭合的注释一直延伸到结束符号，错误恢复模式下整段记录为ERROR类型的Token
+     *
+     * @return 注释正常闭合时返回null
+     */
+    private TokenKind skipBlockComment() {
+        var start = base + index - 2;
+        if (Objects.nonNull(diagnostics)) {//错误恢复模式下把注释当作词素保留在窗口中，未闭合时才能整段返回
+            pos = index - 2;
+            length = 2;
+        }
+        while (true) {
+            var i = index;
+            for (var lim = limit; i < lim; i++) {
+                var c = codes[i];
+                if (c == '*' || c == EOI) break;
+            }
+            index = i;
+            if (i == limit) {
+                fill();
+                continue;
+            }
+            if (codes[i] == EOI) break;
+            index++;
+            nextChar();
+            if (ch == '/') {
+                length = 0;
+                return null;
+            }
+            prevChar();//可能是下一个'*'
+        }
+        if (Objects.isNull(diagnostics)) throw new RuntimeException(String.format("词法解析错误:%s", "/*"));
+        length = Math.toIntExact(base + index - start);
+        return error(Diagnostics.Code.UNTERMINATED_COMMENT);
+    }
+
+    /**
+     * 跳过Token之后同一行内的空白符和行注释，直到并包括行尾的换行符。
+     * 块注释留给下一个Token作为前导trivia
+     */
+    private void skipTrailingTrivia() {
+        while (true) {
+            nextChar();
             switch (ch) {
-                case 'A': case 'B': case 'C': case 'D': case 'E':
-                case 'F': case 'G': case 'H': case 'I': case 'J':
-                case 'K': case 'L': case 'M': case 'N': case 'O':
-                case 'P': case 'Q': case 'R': case 'S': case 'T':
-                case 'U': case 'V': case 'W': case 'X': case 'Y':
-                case 'Z':
-                case 'a': case 'b': case 'c': case 'd': case 'e':
-                case 'f': case 'g': case 'h': case 'i': case 'j':
-                case 'k': case 'l': case 'm': case 'n': case 'o':
-                case 'p': case 'q': case 'r': case 's': case 't':
-                case 'u': case 'v': case 'w': case 'x': case 'y':
-                case 'z':
-                case '$': case '_':
-                case '0': case '1': case '2': case '3': case '4':
-                case '5': case '6': case '7': case '8': case '9':
+                case ' ':
+                case '\t':
                     break;
-                //@formatter:on
-                default:
-                    try {
-                        return getToken();
-                    } finally {
-                        prevChar();
-                        sbuf = null;
+                case '\n':
+                    return;
+                case '\r':
+                    nextChar();
+                    if (ch != LF) prevChar();
+                    return;
+                case '/':
+                    nextChar();
+                    if (ch == '/') {
+                        skipLineComment();
+                        break;
                     }
+                    prevChar();
+                    prevChar();
+                    return;
+                default:
+                    prevChar();
+                    return;
             }
-            addMorpheme();
-            nextChar();
         }
     }
 
     /**
-     * 组装词素
+     * 从当前字符开始，按字符类掩码成段读入字符直到第一个不匹配的字符为止，
+     * 不匹配的字符不会被读入，效果等同于逐个addMorpheme()、nextChar()后再prevChar()
+     *
+     * @param mask
+     */
+    private void scanRun(byte mask) {
+        addMorpheme();
+        var spec = this.spec;
+        var h = hash;
+        var i = index;
+        while (true) {
+            for (var lim = limit; i < lim; i++) {
+                var c = codes[i];
+                if (!spec.is(c, mask)) break;
+                h = 31 * h + c;
+            }
+            if (i < limit || Objects.isNull(reader)) break;
+            length += i - index;//流式读取时窗口已读完，补充后继续
+            index = i;
+            fill();
+            i = index;
+        }
+        length += i - index;
+        index = i;
+        hash = h;
+    }
+
+    /**
+     * 成段跳过空白符
+     */
+    private void skipBlank() {
+        var spec = this.spec;
+        while (true) {
+            var i = index;
+            for (var lim = limit; i < lim; i++) {
+                if (!spec.is(codes[i], LexerSpec.BLANK)) break;
+            }
+            index = i;
+            if (i < limit || Objects.isNull(reader)) return;
+            fill();
+        }
+    }
+
+    /**
+     * 组装词素，词素始终是源文件中的一段连续区间，这里只需记录起始索引和长度
      */
     private void addMorpheme() {
-        sbuf = Objects.isNull(sbuf) ? new char[1] : Arrays.copyOf(sbuf, sbuf.length + 1);
-        sbuf[sbuf.length - 1] = ch;
+        if (length++ == 0) {
+            pos = index - 1;
+            hash = 1;
+        }
+        hash = 31 * hash + ch;
     }
 
     /**
-     * 封装返回Token
+     * 记录识别出的Token
      *
      * @return
      */
-    private Token getToken(TokenKind tokenKin) {
-        var attribute = symbolTable.getAttribute(sbuf);//从符号表中获取出属性对象
-        //根据属性对象的flag字段从反向索引表中获取出TokenKin的序数，再根据序数获取出对应的TokenKin
-        return new Token(attribute, Objects.isNull(tokenKin) ?
-                getTokenKin(attribute.flag) : tokenKin);
-    }
-
-    private Token getToken() {
-        return getToken(null);
+    private TokenKind accept(TokenKind tokenKind) {
+        //保留字和操作符的词素是固定的，字面值几乎不会重复出现，只有标识符才需要进入符号表
+        attribute = tokenKind == TokenKind.IDENTIFIER ?
+                symbolTable.getAttribute(probe.set(codes, pos, length, hash)) : null;
+        tokenPos = pos;
+        tokenLength = length;
+        return tokenKind;
     }
 
     /**
      * 移动索引，读取下一个符号
      */
     private void nextChar() {
-        if (index < codes.length) {
+        if (index == limit && Objects.nonNull(reader)) fill();
+        if (index < limit) {
             ch = codes[index++];
         }
     }
 
+    /**
+     * 滑动窗口，保留当前词素及prevChar()回退所需的当前字符，其余空间从输入源中补充
+     */
+    private void fill() {
+        var keep = Math.max(length > 0 ? Math.min(pos, index - 1) : index - 1, 0);
+        System.arraycopy(codes, keep, codes, 0, limit - keep);
+        limit -= keep;
+        index -= keep;
+        pos -= keep;
+        base += keep;
+        if (limit == codes.length) codes = Arrays.copyOf(codes, codes.length << 1);//单个词素已占满窗口
+        try {
+            var n = reader.read(codes, limit, codes.length - limit);
+            if (n < 0) {
+                codes[limit++] = EOI;
+                reader = null;
+            } else {
+                limit += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 移动索引，读取上一个符号
      */
@@ -326,56 +972,135 @@ public class Lexer {
      * @return
      */
     private Lexer init() {
-        TokenKind[] tokenKins = TokenKind.values();
-        Stream.of(tokenKins).forEach(tokenKind -> {
-            var name = tokenKind.name;
-            if (Objects.nonNull(name)) {
-                var attribute = symbolTable.getAttribute(name.toCharArray());//根据词素从符号表中获取出对应的属性对象，如果不存在就先添加
-                var flag = attribute.flag;
-                indexs.put(flag, tokenKind.ordinal());
-                maxLength = maxLength < flag ? flag : maxLength;
-            }
-        });
-        log.info("maxLength:{}", maxLength);
+        probe = new Chars(null, 0, 0, 0);
         return this;
     }
 
     /**
-     * 符号表
+     * 符号表，只保存标识符，保留字由LexerSpec中的完美哈希表常驻识别，不占用符号表容量。
+     * 容量有上限，写满后按CLOCK算法淘汰最近未被访问的标识符，长时间运行时内存占用保持稳定。
+     * 读操作无锁，插入和淘汰串行执行，可以在多个线程之间共享
      */
-    static class SymbolTable {
+    public static class SymbolTable {
+        public static final int DEFAULT_CAPACITY = 1 << 16;
+        private Map<Chars, Attribute> attributes;
         /**
-         * 记录所有保留字的符号串长度
+         * CLOCK算法的环形槽位，与attributes中的条目一一对应，槽位下标即符号ID。
+         * 按需倍增，写满到capacity后才开始淘汰
          */
-        private int length;
-        private Map<Chars, Attribute> attributes;
+        private Chars[] slots;
+        /**
+         * 最多保存的标识符数量
+         */
+        private int capacity;
+        /**
+         * 已使用的槽位数
+         */
+        private int size;
+        /**
+         * CLOCK算法的指针
+         */
+        private int hand;
+        private LongAdder hits = new LongAdder();
+        private LongAdder misses = new LongAdder();
+        private LongAdder evictions = new LongAdder();
 
-        private SymbolTable() {
-            attributes = new ConcurrentHashMap<>();
+        public SymbolTable() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /**
+         * @param capacity 最多保存的标识符数量
+         */
+        public SymbolTable(int capacity) {
+            if (capacity < 1) throw new IllegalArgumentException(String.format("capacity:%s", capacity));
+            attributes = new ConcurrentHashMap<>(Math.min(capacity, DEFAULT_CAPACITY));
+            this.capacity = capacity;
+            slots = new Chars[Math.min(capacity, 16)];
         }
 
         /**
-         * 根据词素从符号表中获取出对应的属性对象，如果不存在就先添加
+         * 根据词素从符号表中获取出对应的属性对象，如果不存在就先添加，必要时淘汰一个旧的标识符
          *
-         * @param morpheme
+         * @param key 词素，命中时不会被符号表持有，可以复用
          * @return
          */
-        private Attribute getAttribute(char[] morpheme) {
-            var chars = new Chars(morpheme);
-            var attribute = attributes.get(chars);
-            if (Objects.isNull(attribute)) {
-                length += morpheme.length;
-                attribute = new Attribute(morpheme, length);
+        private Attribute getAttribute(Chars key) {
+            var attribute = attributes.get(key);
+            if (Objects.nonNull(attribute)) {
+                hits.increment();
+                if (!attribute.referenced) attribute.referenced = true;//避免每次命中都写同一条缓存行
+                return attribute;
+            }
+            var morpheme = Arrays.copyOfRange(key.morpheme, key.offset, key.offset + key.length);//仅在首次插入时拷贝词素
+            var chars = new Chars(morpheme, 0, morpheme.length, key.hash);
+            synchronized (this) {
+                attribute = attributes.get(chars);//其他线程可能已经插入
+                if (Objects.nonNull(attribute)) {
+                    hits.increment();
+                    return attribute;
+                }
+                misses.increment();
+                var slot = size < capacity ? size++ : evict();//被淘汰的标识符的ID交给新的标识符复用
+                if (slot == slots.length) slots = Arrays.copyOf(slots, (int) Math.min(slots.length * 2L, capacity));
+                slots[slot] = chars;
+                attribute = new Attribute(morpheme, slot);
                 attributes.put(chars, attribute);
+                return attribute;
             }
-            return attribute;
+        }
+
+        /**
+         * CLOCK算法：指针扫过的条目若最近被访问过则清除访问位再给一次机会，否则淘汰
+         *
+         * @return 被淘汰条目的槽位
+         */
+        private int evict() {
+            while (true) {
+                var slot = hand;
+                hand = hand + 1 == slots.length ? 0 : hand + 1;
+                var attribute = attributes.get(slots[slot]);
+                if (attribute.referenced) {
+                    attribute.referenced = false;
+                    continue;
+                }
+                attributes.remove(slots[slot]);
+                evictions.increment();
+                return slot;
+            }
+        }
+
+        public int size() {
+            return attributes.size();
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public long evictions() {
+            return evictions.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SymbolTable{size:%s, capacity:%s, hits:%s, misses:%s, evictions:%s}",
+                    size(), capacity(), hits(), misses(), evictions());
         }
     }
 
     /**
      * 词法单元,即Token序列
      */
-    static class Token {
+    public static class Token {
         /**
          * Token对应的相关属性
          */
@@ -384,40 +1109,307 @@ public class Lexer {
          * Token类型
          */
         private TokenKind tokenKind;
+        /**
+         * 词素所在的缓冲区
+         */
+        private char[] source;
+        /**
+         * 词素在缓冲区中的起始索引
+         */
+        private int start;
+        /**
+         * 词素在整个输入中的偏移量
+         */
+        private long offset;
+        /**
+         * 词素长度
+         */
+        private int length;
+        /**
+         * 数字字面值的数值，浮点数为IEEE 754的位模式
+         */
+        private long value;
 
-        private Token(Attribute attribute, TokenKind tokenKind) {
+        private Token(Attribute attribute, TokenKind tokenKind, char[] source, int start, long offset, int length,
+                      long value) {
             this.attribute = attribute;
             this.tokenKind = tokenKind;
+            this.source = source;
+            this.start = start;
+            this.offset = offset;
+            this.length = length;
+            this.value = value;
+        }
+
+        /**
+         * [leadingStart, offset)为前导trivia，未开启trivia模式时没有trivia，等于offset
+         *
+         * @return
+         */
+        public long getLeadingStart() {
+            return offset;
+        }
+
+        /**
+         * [offset + length, trailingEnd)为尾随trivia，未开启trivia模式时没有trivia，等于offset + length
+         *
+         * @return
+         */
+        public long getTrailingEnd() {
+            return offset + length;
+        }
+
+        public TokenKind getTokenKind() {
+            return tokenKind;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * 按需从源文件中拷贝出词素
+         *
+         * @return
+         */
+        public char[] getMorpheme() {
+            return Arrays.copyOfRange(source, start, start + length);
+        }
+
+        /**
+         * 整数字面值的数值
+         *
+         * @return
+         */
+        public long getLongValue() {
+            if (tokenKind != TokenKind.INTLITERAL)
+                throw new IllegalStateException(String.format("tokenKind:%s", tokenKind));
+            return value;
+        }
+
+        /**
+         * 浮点数字面值的数值，整数字面值会被转换为double
+         *
+         * @return
+         */
+        public double getDoubleValue() {
+            if (tokenKind == TokenKind.FLOATLITERAL) return Double.longBitsToDouble(value);
+            if (tokenKind == TokenKind.INTLITERAL) return value;
+            throw new IllegalStateException(String.format("tokenKind:%s", tokenKind));
         }
 
         @Override
         public String toString() {
             return "Token{" +
-                    "attribute:" + attribute +
+                    "morpheme:'" + new String(source, start, length) + '\'' +
                     ", tokenKind:" + tokenKind +
                     '}';
         }
     }
 
     /**
-     * 目前仅支持一些二元表达式
+     * 开启trivia模式时的Token，额外记录前导及尾随trivia的区间，未开启时不会创建，普通Token不必为此多占内存
      */
-    enum TokenKind {
+    public static class TriviaToken extends Token {
+        /**
+         * 前导trivia的起始偏移量
+         */
+        private long leadingStart;
+        /**
+         * 尾随trivia的结束偏移量
+         */
+        private long trailingEnd;
+
+        private TriviaToken(Attribute attribute, TokenKind tokenKind, char[] source, int start, long offset, int length,
+                            long value, long leadingStart) {
+            super(attribute, tokenKind, source, start, offset, length, value);
+            this.leadingStart = leadingStart;
+        }
+
+        /**
+         * [leadingStart, offset)为前导trivia，即上一个Token的尾随trivia之后到当前Token之前的空白符和注释
+         *
+         * @return
+         */
+        @Override
+        public long getLeadingStart() {
+            return leadingStart;
+        }
+
+        /**
+         * [offset + length, trailingEnd)为尾随trivia，即同一行内的空白符、行注释及行尾的换行符
+         *
+         * @return
+         */
+        @Override
+        public long getTrailingEnd() {
+            return trailingEnd;
+        }
+    }
+
+    /**
+     * 支持Java的全部运算符，name为空的TokenKind词素不固定，其中只有标识符进入符号表，
+     * 数字字面值直接解析为数值，ERROR仅在错误恢复模式下出现
+     */
+    public enum TokenKind {
         //@formatter:off
-        IDENTIFIER, INT("int"), EQ("="), INTLITERAL("0-9"),
+        IDENTIFIER, INT("int"), EQ("="), INTLITERAL,
         SEMI(";"), LT("<"), GT(">"), EQEQ("=="),
         LTEQ("<="), GTEQ(">="), PLUS("+"), SUB("-"),
         STAR("*"), SLASH("/"), PLUSEQ("+="), SUBEQ("-="),
-        STAREQ("*="), SLASHEQ("/="),STRINGLITERAL("string"),
-        TRUE("true"), FALSE("false"), BOOLEAN("boolean");
+        STAREQ("*="), SLASHEQ("/="),STRINGLITERAL,
+        TRUE("true"), FALSE("false"), BOOLEAN("boolean"),
+        BANG("!"), TILDE("~"), QUES("?"), COLON(":"),
+        COLCOL("::"), ARROW("->"), BANGEQ("!="), AMPAMP("&&"),
+        BARBAR("||"), PLUSPLUS("++"), SUBSUB("--"), AMP("&"),
+        BAR("|"), CARET("^"), PERCENT("%"), LTLT("<<"),
+        GTGT(">>"), GTGTGT(">>>"), AMPEQ("&="), BAREQ("|="),
+        CARETEQ("^="), PERCENTEQ("%="), LTLTEQ("<<="), GTGTEQ(">>="),
+        GTGTGTEQ(">>>="), MONKEYS_AT("@"),
+        FLOATLITERAL, ERROR;
         //@formatter:on
-        private String name;
+        String name;
+        char[] morpheme;
 
         TokenKind() {
         }
 
         TokenKind(String name) {
             this.name = name;
+            this.morpheme = name.toCharArray();
+        }
+
+        boolean isNumber() {
+            return this == INTLITERAL || this == FLOATLITERAL;
+        }
+    }
+
+    /**
+     * 错误恢复模式下的诊断信息，存储空间预先分配，记录诊断信息时不创建对象，
+     * 超出容量的诊断信息只计数不保存
+     */
+    public static class Diagnostics {
+        private static final Code[] CODES = Code.values();
+        private byte[] codes;
+        /**
+         * 出错词素在整个输入中的偏移量
+         */
+        private long[] offsets;
+        /**
+         * 出错词素的长度
+         */
+        private int[] lengths;
+        private int size;
+        /**
+         * 因超出容量而被丢弃的诊断信息数量
+         */
+        private long dropped;
+
+        public Diagnostics() {
+            this(64);
+        }
+
+        public Diagnostics(int capacity) {
+            if (capacity < 0) throw new IllegalArgumentException(String.format("capacity:%s", capacity));
+            codes = new byte[capacity];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+        }
+
+        void add(Code code, long offset, int length) {
+            if (size == codes.length) {
+                dropped++;
+                return;
+            }
+            codes[size] = (byte) code.ordinal();
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+
+        /**
+         * 记录在其他地方已被丢弃的诊断信息数量，用于从缓存中恢复
+         *
+         * @param count
+         */
+        void drop(long count) {
+            dropped += count;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long dropped() {
+            return dropped;
+        }
+
+        public boolean isEmpty() {
+            return size == 0 && dropped == 0;
+        }
+
+        public void clear() {
+            size = 0;
+            dropped = 0;
+        }
+
+        public Code code(int i) {
+            return CODES[codes[checkIndex(i)]];
+        }
+
+        public long offset(int i) {
+            return offsets[checkIndex(i)];
+        }
+
+        public int length(int i) {
+            return lengths[checkIndex(i)];
+        }
+
+        private int checkIndex(int i) {
+            return Objects.checkIndex(i, size);
+        }
+
+        @Override
+        public String toString() {
+            var sb = new StringBuilder("Diagnostics{");
+            for (var i = 0; i < size; i++) {
+                sb.append(i == 0 ? "" : ", ").append(CODES[codes[i]].message).append('@').append(offsets[i]);
+            }
+            return sb.append(size == 0 ? "" : ", ").append("dropped:").append(dropped).append('}').toString();
+        }
+
+        /**
+         * 与toString()相同，但偏移量换算为行号和列号
+         *
+         * @param lines 输入对应的行索引
+         * @return
+         */
+        public String toString(LineIndex lines) {
+            Objects.requireNonNull(lines);
+            var sb = new StringBuilder("Diagnostics{");
+            for (var i = 0; i < size; i++) {
+                sb.append(i == 0 ? "" : ", ").append(CODES[codes[i]].message).append('@').append(lines.position(offsets[i]));
+            }
+            return sb.append(size == 0 ? "" : ", ").append("dropped:").append(dropped).append('}').toString();
+        }
+
+        public enum Code {
+            UNTERMINATED_STRING("未闭合的字符串"), ILLEGAL_CHARACTER("无法识别的字符"),
+            MALFORMED_NUMBER("非法的数字字面值"), NUMBER_OVERFLOW("数字字面值溢出"),
+            UNTERMINATED_COMMENT("未闭合的注释");
+            private String message;
+
+            Code(String message) {
+                this.message = message;
+            }
+
+            public String getMessage() {
+                return message;
+            }
         }
     }
 
@@ -427,48 +1419,68 @@ public class Lexer {
          */
         private char[] morpheme;
         /**
-         * 保留字标记
+         * 符号ID，即所在槽位的下标，驻留在符号表中期间唯一
          */
-        private int flag;
+        private int id;
+        /**
+         * CLOCK算法的访问位
+         */
+        private volatile boolean referenced;
 
-        private Attribute(char[] morpheme, int flag) {
+        private Attribute(char[] morpheme, int id) {
             this.morpheme = morpheme;
-            this.flag = flag;
+            this.id = id;
         }
 
         @Override
         public String toString() {
-            return String.format("morpheme:'%s',flag:%s", new String(morpheme), flag);
+            return String.format("morpheme:'%s',id:%s", new String(morpheme), id);
         }
     }
 
     /**
-     * 对词素进行封装
+     * 对词素进行封装，引用缓冲区中的一段区间
      */
     static class Chars {
         private char[] morpheme;
+        private int offset;
+        private int length;
+        private int hash;
+
+        private Chars(char[] morpheme, int offset, int length, int hash) {
+            set(morpheme, offset, length, hash);
+        }
 
-        private Chars(char[] morpheme) {
+        /**
+         * 复用当前对象，哈希值由调用方在读入词素时增量计算
+         */
+        private Chars set(char[] morpheme, int offset, int length, int hash) {
             this.morpheme = morpheme;
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+            return this;
         }
 
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (!(o instanceof Chars)) return false;
             Chars chars = (Chars) o;
-            return Arrays.equals(morpheme, chars.morpheme);
+            return hash == chars.hash && Arrays.equals(morpheme, offset, offset + length,
+                    chars.morpheme, chars.offset, chars.offset + chars.length);
         }
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(morpheme);
+            return hash;
         }
     }
 
     public static void main(String[] agrs) {
         new Lexer("String str = \"Hello World\";" +
                 "int v1 = 100;" +
-                "boolean v2 = true").init().parse();
+                "boolean v2 = true", new SymbolTable()).init().parse();
     }
 }
\ No newline at end of file
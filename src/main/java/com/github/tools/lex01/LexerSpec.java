@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 预编译的词法规则，包含字符类掩码表、保留字的完美哈希表和操作符的前缀树。
+ * 只在类加载时构建一次，构建后不可变，可以被任意多个线程中的词法分析器共享
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 2:10 上午
+ */
+public final class LexerSpec {
+    //@formatter:off
+    /**
+     * 字符类掩码
+     */
+    static final byte IDENT_PART = 1, DIGIT = 2, BLANK = 4;
+    /**
+     * 操作符前缀树的死状态和初态
+     */
+    static final int DEAD = 0, ROOT = 1;
+    //@formatter:on
+    private static Logger log = LoggerFactory.getLogger(LexerSpec.class);
+    /**
+     * 默认的词法规则
+     */
+    public static final LexerSpec DEFAULT = new LexerSpec();
+    /**
+     * ASCII字符对应的字符类掩码，取代逐字符的switch分支
+     */
+    private final byte[] charClasses = new byte[128];
+    /**
+     * 寻找完美哈希时尝试的乘数个数
+     */
+    private static final int MULTIPLIERS = 1 << 10;
+    /**
+     * 完美哈希表的槽位数相对于保留字数量的上限
+     */
+    private static final int MAX_LOAD = 64;
+    /**
+     * 保留字的完美哈希表，以词素全部字符的哈希值计算槽位，该哈希值由词法分析器在读入字符的同时算出，
+     * 查询时不装箱、不分配内存
+     */
+    private final Lexer.TokenKind[] slots;
+    private final int multiplier;
+    private final int mask;
+    /**
+     * ASCII字符在操作符前缀树中的列号，0列表示不是操作符字符，任何状态在0列上都转换到死状态
+     */
+    private final byte[] operatorColumns = new byte[128];
+    /**
+     * 操作符前缀树的状态转换表，operatorTable[state * operatorWidth + column]为下一个状态
+     */
+    private final int[] operatorTable;
+    private final int operatorWidth;
+    /**
+     * 每个状态对应的操作符，操作符集合对前缀封闭，除死状态外的每个状态都是接受状态
+     */
+    private final Lexer.TokenKind[] operators;
+
+    private LexerSpec() {
+        for (var ch = 0; ch < charClasses.length; ch++) {
+            if (Character.isLetter(ch) || ch == '$' || ch == '_') charClasses[ch] |= IDENT_PART;
+            if (Character.isDigit(ch)) charClasses[ch] |= IDENT_PART | DIGIT;
+        }
+        charClasses[' '] |= BLANK;
+        charClasses['\t'] |= BLANK;
+        charClasses['\r'] |= BLANK;
+        charClasses['\n'] |= BLANK;
+
+        var kinds = Arrays.stream(Lexer.TokenKind.values()).filter(kind -> Objects.nonNull(kind.name)
+                && Character.isLetter(kind.name.charAt(0))).toArray(Lexer.TokenKind[]::new);
+        var found = search(Arrays.stream(kinds).map(kind -> kind.morpheme).toArray(char[][]::new));
+        var size = found[0];
+        multiplier = found[1];
+        mask = size - 1;
+        slots = new Lexer.TokenKind[size];
+        for (var kind : kinds) {
+            slots[slot(hash(kind.morpheme, 0, kind.morpheme.length), multiplier, mask)] = kind;
+        }
+        log.debug("keywords:{}, slots:{}, multiplier:{}", kinds.length, size, multiplier);
+
+        var operators = Arrays.stream(Lexer.TokenKind.values()).filter(kind -> Objects.nonNull(kind.name)
+                && !Character.isLetter(kind.name.charAt(0))).toArray(Lexer.TokenKind[]::new);
+        var width = 1;
+        var states = 2;
+        for (var kind : operators) {
+            states += kind.morpheme.length;
+            for (var ch : kind.morpheme) {
+                if (operatorColumns[ch] == 0) operatorColumns[ch] = (byte) width++;
+            }
+        }
+        var table = new int[states * width];
+        var accepts = new Lexer.TokenKind[states];
+        var next = ROOT + 1;
+        for (var kind : operators) {
+            var state = ROOT;
+            for (var ch : kind.morpheme) {
+                var i = state * width + operatorColumns[ch];
+                if (table[i] == DEAD) table[i] = next++;
+                state = table[i];
+            }
+            accepts[state] = kind;
+        }
+        for (var state = ROOT + 1; state < next; state++) {//保证最长匹配失败时最多只需回退一个字符
+            if (Objects.isNull(accepts[state])) throw new IllegalStateException(String.format("state:%s", state));
+        }
+        operatorTable = Arrays.copyOf(table, next * width);
+        operatorWidth = width;
+        this.operators = Arrays.copyOf(accepts, next);
+        log.debug("operators:{}, states:{}, columns:{}", operators.length, next, width);
+    }
+
+    /**
+     * 为保留字寻找无冲突的哈希表大小和乘数，逐个尝试乘数，找不到时扩大哈希表，超出上限时放弃
+     *
+     * @param keywords
+     * @return 哈希表的槽位数和乘数
+     */
+    static int[] search(char[][] keywords) {
+        var hashes = new int[keywords.length];
+        for (var i = 0; i < keywords.length; i++) {
+            hashes[i] = hash(keywords[i], 0, keywords[i].length);
+            for (var j = 0; j < i; j++) {//哈希值相同的保留字无论如何都无法分开
+                if (hashes[j] == hashes[i]) throw new IllegalStateException(String.format("保留字的哈希值冲突:%s,%s",
+                        new String(keywords[j]), new String(keywords[i])));
+            }
+        }
+        var initial = Math.max(Integer.highestOneBit(keywords.length) << 1, 2);
+        for (var size = initial; size <= initial * MAX_LOAD; size <<= 1) {
+            for (var multiplier = 1; multiplier < MULTIPLIERS; multiplier += 2) {
+                if (place(hashes, size, multiplier)) return new int[]{size, multiplier};
+            }
+        }
+        throw new IllegalStateException(String.format("无法为%s个保留字构建完美哈希表", keywords.length));
+    }
+
+    private static boolean place(int[] hashes, int size, int multiplier) {
+        var used = new boolean[size];
+        for (var hash : hashes) {
+            var slot = slot(hash, multiplier, size - 1);
+            if (used[slot]) return false;
+            used[slot] = true;
+        }
+        return true;
+    }
+
+    /**
+     * 与词法分析器读入字符时增量计算的哈希值一致
+     *
+     * @param buf
+     * @param off
+     * @param len
+     * @return
+     */
+    static int hash(char[] buf, int off, int len) {
+        var h = 1;
+        for (var i = off; i < off + len; i++) h = 31 * h + buf[i];
+        return h;
+    }
+
+    static int slot(int hash, int multiplier, int mask) {
+        var h = hash * multiplier;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /**
+     * 判断字符是否属于指定的字符类
+     *
+     * @param ch
+     * @param mask 字符类掩码
+     * @return
+     */
+    boolean is(char ch, byte mask) {
+        return ch < 128 && (charClasses[ch] & mask) != 0;
+    }
+
+    /**
+     * 根据词素查找对应的保留字
+     *
+     * @param buf  词素所在的缓冲区
+     * @param off  词素起始索引
+     * @param len  词素长度
+     * @param hash 词素的哈希值，即hash(buf, off, len)
+     * @return 不是保留字时返回null
+     */
+    Lexer.TokenKind lookup(char[] buf, int off, int len, int hash) {
+        if (len == 0) return null;
+        var kind = slots[slot(hash, multiplier, mask)];
+        if (Objects.isNull(kind) || kind.morpheme.length != len) return null;
+        var morpheme = kind.morpheme;
+        for (var i = 0; i < len; i++) {
+            if (morpheme[i] != buf[off + i]) return null;
+        }
+        return kind;
+    }
+
+    /**
+     * 操作符前缀树中的状态转换
+     *
+     * @param state
+     * @param ch
+     * @return 不能继续匹配时返回DEAD
+     */
+    int nextOperator(int state, char ch) {
+        return ch < 128 ? operatorTable[state * operatorWidth + operatorColumns[ch]] : DEAD;
+    }
+
+    /**
+     * 前缀树中的状态对应的操作符
+     *
+     * @param state
+     * @return
+     */
+    Lexer.TokenKind operator(int state) {
+        return operators[state];
+    }
+}
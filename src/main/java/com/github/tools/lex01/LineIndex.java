@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 偏移量到行号、列号的映射。词法分析的热循环中不统计行号，
+ * 首次查询时才一次性扫描输入建立每行起始偏移量的索引，之后每次查询都是二分查找。
+ * 换行符与Java一致: LF、CR及CRLF，CRLF只算一次换行。
+ * 输入是CharSequence，偏移量的取值范围不会超过int，超出输入范围的偏移量一律抛出IndexOutOfBoundsException
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 9:20 上午
+ */
+public class LineIndex {
+    private final CharSequence source;
+    /**
+     * 每行的起始偏移量，首次查询时才建立
+     */
+    private volatile int[] starts;
+    private int lines;
+
+    private LineIndex(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * 创建输入对应的行索引，此时不会扫描输入，输入在查询前不能被修改
+     *
+     * @param source
+     * @return
+     */
+    public static LineIndex of(CharSequence source) {
+        Objects.requireNonNull(source);
+        return new LineIndex(source);
+    }
+
+    /**
+     * 偏移量所在的行号，从1开始
+     *
+     * @param offset
+     * @return
+     */
+    public int line(long offset) {
+        return line(starts(), checkOffset(offset));
+    }
+
+    private int line(int[] starts, int offset) {
+        var i = Arrays.binarySearch(starts, 0, lines, offset);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * 偏移量在所在行中的列号，从1开始，制表符只算一列
+     *
+     * @param offset
+     * @return
+     */
+    public int column(long offset) {
+        var starts = starts();
+        var i = checkOffset(offset);
+        return i - starts[line(starts, i) - 1] + 1;
+    }
+
+    /**
+     * 指定行的起始偏移量
+     *
+     * @param line 从1开始
+     * @return
+     */
+    public int lineStart(int line) {
+        var starts = starts();
+        if (line < 1 || line > lines) throw new IndexOutOfBoundsException(String.format("line:%s,lines:%s", line, lines));
+        return starts[line - 1];
+    }
+
+    /**
+     * 总行数，空输入也算一行
+     *
+     * @return
+     */
+    public int lines() {
+        starts();
+        return lines;
+    }
+
+    /**
+     * 格式化为"行号:列号"
+     *
+     * @param offset
+     * @return
+     */
+    public String position(long offset) {
+        var starts = starts();
+        var i = checkOffset(offset);
+        var line = line(starts, i);
+        return line + ":" + (i - starts[line - 1] + 1);
+    }
+
+    /**
+     * 偏移量可以等于输入长度，即结束位置
+     *
+     * @param offset
+     * @return
+     */
+    private int checkOffset(long offset) {
+        if (offset < 0 || offset > source.length())
+            throw new IndexOutOfBoundsException(String.format("offset:%s,length:%s", offset, source.length()));
+        return (int) offset;
+    }
+
+    private int[] starts() {
+        var starts = this.starts;
+        if (Objects.isNull(starts)) {
+            synchronized (this) {
+                if (Objects.isNull(starts = this.starts)) this.starts = starts = build();
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * 一次性扫描整个输入，记录每个换行符之后的偏移量
+     *
+     * @return
+     */
+    private int[] build() {
+        var source = this.source;
+        var starts = new int[Math.max(source.length() >> 5, 16)];
+        var n = 1;//第一行从0开始
+        for (int i = 0, length = source.length(); i < length; i++) {
+            var ch = source.charAt(i);
+            if (ch != '\n' && ch != '\r') continue;
+            if (ch == '\r' && i + 1 < length && source.charAt(i + 1) == '\n') i++;
+            if (n == starts.length) starts = Arrays.copyOf(starts, n << 1);
+            starts[n++] = i + 1;
+        }
+        lines = n;
+        return starts;
+    }
+}
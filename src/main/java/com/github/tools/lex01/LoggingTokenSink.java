@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.slf4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步输出Token日志的回调，仅用于调试。词法分析线程只把Token写入批次，
+ * 格式化和日志输出都在后台线程中完成，批次用完后会被回收复用。
+ * 日志输出失败时只记录失败的Token数量，批次照常回收，词法分析线程不会因此阻塞
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 1:30 上午
+ */
+public class LoggingTokenSink implements TokenSink, AutoCloseable {
+    private static final Lexer.TokenKind[] KINDS = Lexer.TokenKind.values();
+    /**
+     * 通知后台线程退出的空批次
+     */
+    private static final Batch EOF = new Batch(0);
+    /**
+     * 等待空闲批次时检查后台线程是否存活的间隔
+     */
+    private static final long POLL_MILLIS = 100;
+    private final Logger log;
+    /**
+     * 已写满待输出的批次
+     */
+    private final BlockingQueue<Batch> full;
+    /**
+     * 已输出可复用的批次
+     */
+    private final BlockingQueue<Batch> free;
+    private final Thread writer;
+    /**
+     * 当前正在写入的批次
+     */
+    private Batch batch;
+    /**
+     * 因日志输出失败而丢失的Token数量
+     */
+    private final LongAdder failures = new LongAdder();
+
+    public LoggingTokenSink(Logger log) {
+        this(log, 1024, 4);
+    }
+
+    /**
+     * @param log
+     * @param batchSize 每个批次可容纳的Token数量
+     * @param batches   批次数量，全部待输出时词法分析线程会阻塞等待
+     */
+    public LoggingTokenSink(Logger log, int batchSize, int batches) {
+        Objects.requireNonNull(log);
+        if (batchSize < 1) throw new IllegalArgumentException(String.format("batchSize:%s", batchSize));
+        if (batches < 1) throw new IllegalArgumentException(String.format("batches:%s", batches));
+        this.log = log;
+        full = new ArrayBlockingQueue<>(batches + 1);
+        free = new ArrayBlockingQueue<>(batches);
+        for (var i = 1; i < batches; i++) {
+            free.add(new Batch(batchSize));
+        }
+        batch = new Batch(batchSize);
+        writer = new Thread(this::drain, "lex-token-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void accept(Lexer.TokenKind kind, long offset, int length) {
+        batch.kinds[batch.size] = (byte) kind.ordinal();
+        batch.offsets[batch.size] = offset;
+        batch.lengths[batch.size] = length;
+        if (++batch.size == batch.kinds.length) {
+            put(full, batch);
+            batch = takeFree();
+        }
+    }
+
+    /**
+     * 提交当前未写满的批次
+     */
+    public void flush() {
+        if (batch.size == 0) return;
+        put(full, batch);
+        batch = takeFree();
+    }
+
+    /**
+     * 因日志输出失败而丢失的Token数量
+     *
+     * @return
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * 提交剩余的Token并等待后台线程输出完毕
+     */
+    @Override
+    public void close() {
+        flush();
+        put(full, EOF);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        for (var batch = take(full); batch != EOF; batch = take(full)) {
+            var i = 0;
+            try {
+                for (; i < batch.size; i++) {
+                    log.info("Token{offset:{}, length:{}, tokenKind:{}}", batch.offsets[i], batch.lengths[i], KINDS[batch.kinds[i]]);
+                }
+            } catch (RuntimeException e) {
+                failures.add(batch.size - i);//日志本身已经不可用，只能计数
+            } finally {
+                batch.size = 0;
+                put(free, batch);
+            }
+        }
+    }
+
+    /**
+     * 词法分析线程获取空闲批次，后台线程意外退出时抛出异常而不是永远阻塞
+     *
+     * @return
+     */
+    private Batch takeFree() {
+        try {
+            while (true) {
+                var batch = free.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.nonNull(batch)) return batch;
+                if (!writer.isAlive()) throw new IllegalStateException(String.format("writer:%s", writer.getName()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void put(BlockingQueue<Batch> queue, Batch batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Batch take(BlockingQueue<Batch> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 以结构数组形式保存的一批Token
+     */
+    private static class Batch {
+        private final byte[] kinds;
+        private final long[] offsets;
+        private final int[] lengths;
+        private int size;
+
+        private Batch(int capacity) {
+            kinds = new byte[capacity];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+        }
+    }
+}
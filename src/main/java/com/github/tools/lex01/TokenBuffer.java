@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.util.Arrays;
+
+/**
+ * 以结构数组形式保存的Token序列，每个Token只占用13个字节，没有对象头开销，
+ * 下游按下标顺序遍历时对缓存友好。数字字面值不进入符号表，其符号ID列改为存放数值在values中的下标，
+ * 数值只为数字字面值额外占用8个字节
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 11:30 下午
+ */
+public class TokenBuffer {
+    /**
+     * 只有标识符进入符号表，其余Token没有符号ID
+     */
+    public static final int NO_SYMBOL = -1;
+    private static final Lexer.TokenKind[] KINDS = Lexer.TokenKind.values();
+    /**
+     * Token类型的序数
+     */
+    private byte[] kinds;
+    /**
+     * 词素在源文件中的起始索引
+     */
+    private int[] starts;
+    /**
+     * 词素长度
+     */
+    private int[] lengths;
+    /**
+     * 词素在符号表中的ID
+     */
+    private int[] symbols;
+    private int size;
+    /**
+     * 数字字面值的数值，浮点数为IEEE 754的位模式
+     */
+    private long[] values;
+    private int valueCount;
+
+    public TokenBuffer() {
+        this(1024);
+    }
+
+    public TokenBuffer(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException(String.format("capacity:%s", capacity));
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        symbols = new int[capacity];
+        values = new long[16];
+    }
+
+    void add(Lexer.TokenKind kind, int start, int length, int symbol, long value) {
+        if (size == kinds.length) grow();
+        kinds[size] = (byte) kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        if (kind.isNumber()) {
+            if (valueCount == values.length) values = Arrays.copyOf(values, valueCount << 1);
+            values[valueCount] = value;
+            symbol = valueCount++;
+        }
+        symbols[size] = symbol;
+        size++;
+    }
+
+    private void grow() {
+        var capacity = kinds.length + (kinds.length >> 1) + 1;
+        kinds = Arrays.copyOf(kinds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空后可以复用已分配的数组
+     */
+    public void clear() {
+        size = 0;
+        valueCount = 0;
+    }
+
+    public Lexer.TokenKind kind(int i) {
+        return KINDS[kinds[checkIndex(i)]];
+    }
+
+    public int start(int i) {
+        return starts[checkIndex(i)];
+    }
+
+    public int length(int i) {
+        return lengths[checkIndex(i)];
+    }
+
+    public int end(int i) {
+        return starts[checkIndex(i)] + lengths[i];
+    }
+
+    /**
+     * 符号ID，相同的标识符在同一个符号表中ID相同，被淘汰后其ID会被新的标识符复用
+     *
+     * @param i
+     * @return 标识符以外的Token返回NO_SYMBOL
+     */
+    public int symbol(int i) {
+        return KINDS[kinds[checkIndex(i)]].isNumber() ? NO_SYMBOL : symbols[i];
+    }
+
+    /**
+     * 整数字面值的数值
+     *
+     * @param i
+     * @return
+     */
+    public long longValue(int i) {
+        if (KINDS[kinds[checkIndex(i)]] != Lexer.TokenKind.INTLITERAL)
+            throw new IllegalStateException(String.format("kind:%s", kind(i)));
+        return values[symbols[i]];
+    }
+
+    /**
+     * 浮点数字面值的数值，整数字面值会被转换为double
+     *
+     * @param i
+     * @return
+     */
+    public double doubleValue(int i) {
+        var kind = kind(i);
+        if (kind == Lexer.TokenKind.FLOATLITERAL) return Double.longBitsToDouble(values[symbols[i]]);
+        if (kind == Lexer.TokenKind.INTLITERAL) return values[symbols[i]];
+        throw new IllegalStateException(String.format("kind:%s", kind));
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(String.format("index:%s,size:%s", i, size));
+        return i;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * 以游标方式读取TokenWriter生成的二进制Token序列，直接在ByteBuffer或映射文件上解码，
+ * 不为每个Token创建对象。打开时只建立字典的索引，词素按需解码
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 7:00 上午
+ */
+public class TokenReader {
+    private static final Lexer.TokenKind[] KINDS = Lexer.TokenKind.values();
+    private final ByteBuffer buffer;
+    /**
+     * 字典项的UTF-8字节在buffer中的起始位置
+     */
+    private final int[] positions;
+    /**
+     * 字典项的字符数
+     */
+    private final int[] lengths;
+    /**
+     * 字典项的UTF-8字节数
+     */
+    private final int[] sizes;
+    /**
+     * Token记录在buffer中的起始位置
+     */
+    private final int records;
+    private final int size;
+    /**
+     * 已读取的Token数量
+     */
+    private int count;
+    private Lexer.TokenKind kind;
+    private int start;
+    private int length;
+    /**
+     * 当前Token的字典下标，数字字面值时为数值
+     */
+    private long value;
+
+    private TokenReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        var magic = buffer.getInt();
+        if (magic != TokenWriter.MAGIC) throw new IllegalArgumentException(String.format("magic:%s", magic));
+        var version = buffer.get();
+        if (version != TokenWriter.VERSION) throw new IllegalArgumentException(String.format("version:%s", version));
+        var entries = Math.toIntExact(getVarint());
+        positions = new int[entries];
+        lengths = new int[entries];
+        sizes = new int[entries];
+        for (var i = 0; i < entries; i++) {
+            lengths[i] = Math.toIntExact(getVarint());
+            sizes[i] = Math.toIntExact(getVarint());
+            positions[i] = buffer.position();
+            buffer.position(positions[i] + sizes[i]);
+        }
+        size = Math.toIntExact(getVarint());
+        records = buffer.position();
+    }
+
+    /**
+     * 从ByteBuffer中读取，读取过程不会修改原buffer的位置
+     *
+     * @param buffer
+     * @return
+     */
+    public static TokenReader of(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer);
+        return new TokenReader(buffer.slice());
+    }
+
+    /**
+     * 以内存映射的方式读取文件
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static TokenReader open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IllegalArgumentException(String.format("size:%s", channel.size()));
+            return new TokenReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 前进到下一个Token
+     *
+     * @return 已读取完毕时返回false
+     */
+    public boolean next() {
+        if (count == size) return false;
+        kind = KINDS[Math.toIntExact(getVarint())];
+        start += length + unzigzag(getVarint());
+        if (Objects.nonNull(kind.name)) {
+            length = kind.morpheme.length;
+        } else if (kind == Lexer.TokenKind.INTLITERAL) {
+            length = Math.toIntExact(getVarint());
+            value = unzigzag(getVarint());
+        } else if (kind == Lexer.TokenKind.FLOATLITERAL) {
+            length = Math.toIntExact(getVarint());
+            value = buffer.getLong();
+        } else {
+            value = getVarint();
+            length = lengths[(int) value];
+        }
+        count++;
+        return true;
+    }
+
+    /**
+     * 回到第一个Token之前，可以重新遍历
+     */
+    public void rewind() {
+        buffer.position(records);
+        count = start = length = 0;
+    }
+
+    /**
+     * Token总数
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    public Lexer.TokenKind kind() {
+        return checkToken();
+    }
+
+    public int start() {
+        checkToken();
+        return start;
+    }
+
+    public int length() {
+        checkToken();
+        return length;
+    }
+
+    public int end() {
+        checkToken();
+        return start + length;
+    }
+
+    /**
+     * 当前Token在字典中的下标，相同的词素下标相同
+     *
+     * @return 保留字、操作符和数字字面值返回TokenBuffer.NO_SYMBOL
+     */
+    public int symbol() {
+        var kind = checkToken();
+        return Objects.nonNull(kind.name) || kind.isNumber() ? TokenBuffer.NO_SYMBOL : (int) value;
+    }
+
+    /**
+     * 当前Token的词素，字典中的词素按需解码
+     *
+     * @return
+     */
+    public String morpheme() {
+        var kind = checkToken();
+        if (Objects.nonNull(kind.name)) return kind.name;
+        if (kind.isNumber()) throw new IllegalStateException(String.format("kind:%s", kind));
+        return symbol((int) value);
+    }
+
+    /**
+     * 解码字典中的词素
+     *
+     * @param symbol
+     * @return
+     */
+    public String symbol(int symbol) {
+        if (symbol < 0 || symbol >= positions.length)
+            throw new IndexOutOfBoundsException(String.format("symbol:%s,size:%s", symbol, positions.length));
+        var bytes = new byte[sizes[symbol]];
+        buffer.get(positions[symbol], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 字典项数量
+     *
+     * @return
+     */
+    public int symbols() {
+        return positions.length;
+    }
+
+    public long longValue() {
+        var kind = checkToken();
+        if (kind != Lexer.TokenKind.INTLITERAL) throw new IllegalStateException(String.format("kind:%s", kind));
+        return value;
+    }
+
+    /**
+     * 浮点数字面值的数值，整数字面值会被转换为double
+     *
+     * @return
+     */
+    public double doubleValue() {
+        var kind = checkToken();
+        if (kind == Lexer.TokenKind.FLOATLITERAL) return Double.longBitsToDouble(value);
+        if (kind == Lexer.TokenKind.INTLITERAL) return value;
+        throw new IllegalStateException(String.format("kind:%s", kind));
+    }
+
+    private Lexer.TokenKind checkToken() {
+        if (count == 0) throw new IllegalStateException(String.format("count:%s", count));
+        return kind;
+    }
+
+    private long getVarint() {
+        var value = 0L;
+        for (var shift = 0; ; shift += 7) {
+            var b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
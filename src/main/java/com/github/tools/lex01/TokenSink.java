@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+/**
+ * Token回调，词法分析器以基本类型的形式推送每个Token，不会创建Token对象
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 1:20 上午
+ */
+@FunctionalInterface
+public interface TokenSink {
+    /**
+     * 不做任何处理的回调
+     */
+    TokenSink NONE = (kind, offset, length) -> {
+    };
+
+    /**
+     * 接收一个Token
+     *
+     * @param kind   Token类型
+     * @param offset 词素在整个输入中的偏移量
+     * @param length 词素长度
+     */
+    void accept(Lexer.TokenKind kind, long offset, int length);
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 按需拉取的Token迭代器，消费方前进时才驱动词法分析器识别下一个Token，
+ * 预读的Token缓存在环形缓冲区中，peek不会重复扫描
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 0:40 上午
+ */
+public class TokenStream implements Iterator<Lexer.Token> {
+    private final Lexer lexer;
+    /**
+     * 预读缓冲区，容量始终为2的幂
+     */
+    private Lexer.Token[] ring;
+    /**
+     * 下一个待返回的Token在ring中的索引
+     */
+    private int head;
+    /**
+     * 已预读的Token数量
+     */
+    private int count;
+    /**
+     * 词法分析器已读入到结束符号
+     */
+    private boolean eof;
+
+    TokenStream(Lexer lexer, int lookahead) {
+        Objects.requireNonNull(lexer);
+        if (lookahead < 1) throw new IllegalArgumentException(String.format("lookahead:%s", lookahead));
+        this.lexer = lexer;
+        ring = new Lexer.Token[Integer.highestOneBit(lookahead - 1 | 1) << 1];
+    }
+
+    @Override
+    public boolean hasNext() {
+        return Objects.nonNull(peek(0));
+    }
+
+    @Override
+    public Lexer.Token next() {
+        var token = peek(0);
+        if (Objects.isNull(token)) throw new NoSuchElementException();
+        ring[head] = null;
+        head = head + 1 & ring.length - 1;
+        count--;
+        return token;
+    }
+
+    /**
+     * 查看下一个Token但不消费
+     *
+     * @return 没有剩余Token时返回null
+     */
+    public Lexer.Token peek() {
+        return peek(0);
+    }
+
+    /**
+     * 向前查看第k个Token但不消费，peek(0)即下一次next()的返回值，
+     * k超过缓冲区容量时缓冲区会自动扩容
+     *
+     * @param k
+     * @return 剩余Token不足k+1个时返回null
+     */
+    public Lexer.Token peek(int k) {
+        if (k < 0) throw new IllegalArgumentException(String.format("k:%s", k));
+        while (count <= k) {
+            if (eof) return null;
+            var token = lexer.nextToken();
+            if (Objects.isNull(token)) {
+                eof = true;
+                return null;
+            }
+            if (count == ring.length) grow();
+            ring[head + count++ & ring.length - 1] = token;
+        }
+        return ring[head + k & ring.length - 1];
+    }
+
+    private void grow() {
+        var tokens = new Lexer.Token[ring.length << 1];
+        for (var i = 0; i < count; i++) {
+            tokens[i] = ring[head + i & ring.length - 1];
+        }
+        ring = tokens;
+        head = 0;
+    }
+}
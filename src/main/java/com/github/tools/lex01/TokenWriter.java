@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * 将TokenBuffer序列化为紧凑的二进制格式，供其他流水线阶段或其他机器直接加载，无需重新词法分析。
+ * <p>
+ * 格式依次为: 魔数、版本号、词素字典、Token数量、Token记录，除魔数外的整数均为varint编码。
+ * 字典中的每一项为字符数、UTF-8字节数及UTF-8字节，标识符、字符串字面值及ERROR的词素都只保存一次。
+ * 每条Token记录以类型序数和与上一个Token结尾的间距(zigzag)开头，保留字和操作符的长度由类型确定，
+ * 数字字面值紧跟长度和数值，其余类型紧跟字典下标
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 6:40 上午
+ */
+public final class TokenWriter {
+    /**
+     * 魔数，即ASCII的"LEX1"
+     */
+    static final int MAGIC = 0x4C455831;
+    /**
+     * TokenKind的序数会随版本变化，版本号不一致的文件无法读取
+     */
+    static final byte VERSION = 1;
+
+    private TokenWriter() {
+    }
+
+    /**
+     * 将Token序列编码到一个新的ByteBuffer中
+     *
+     * @param tokens
+     * @param source 词法分析时的输入，用于取出字典中的词素
+     * @return 已flip，可以直接读取或写出
+     */
+    public static ByteBuffer encode(TokenBuffer tokens, CharSequence source) {
+        Objects.requireNonNull(tokens);
+        Objects.requireNonNull(source);
+        var out = new Output(tokens.size() * 3 + 64);
+        out.putInt(MAGIC);
+        out.put(VERSION);
+
+        var dictionary = new HashMap<String, Integer>();
+        var entries = new int[tokens.size()];//每个Token对应的字典下标
+        var morphemes = new String[16];
+        for (var i = 0; i < tokens.size(); i++) {
+            var kind = tokens.kind(i);
+            if (Objects.nonNull(kind.name) || kind.isNumber()) continue;
+            var morpheme = source.subSequence(tokens.start(i), tokens.end(i)).toString();
+            var size = dictionary.size();
+            entries[i] = dictionary.computeIfAbsent(morpheme, key -> size);
+            if (entries[i] == size) {
+                if (size == morphemes.length) morphemes = Arrays.copyOf(morphemes, size << 1);
+                morphemes[size] = morpheme;
+            }
+        }
+        out.putVarint(dictionary.size());
+        for (var i = 0; i < dictionary.size(); i++) {
+            var bytes = morphemes[i].getBytes(StandardCharsets.UTF_8);
+            out.putVarint(morphemes[i].length());
+            out.putVarint(bytes.length);
+            out.put(bytes);
+        }
+
+        out.putVarint(tokens.size());
+        var end = 0L;
+        for (var i = 0; i < tokens.size(); i++) {
+            var kind = tokens.kind(i);
+            out.putVarint(kind.ordinal());
+            out.putVarint(zigzag(tokens.start(i) - end));
+            end = tokens.end(i);
+            if (Objects.nonNull(kind.name)) continue;
+            if (kind == Lexer.TokenKind.INTLITERAL) {
+                out.putVarint(tokens.length(i));
+                out.putVarint(zigzag(tokens.longValue(i)));
+            } else if (kind == Lexer.TokenKind.FLOATLITERAL) {
+                out.putVarint(tokens.length(i));
+                out.putLong(Double.doubleToRawLongBits(tokens.doubleValue(i)));
+            } else {
+                out.putVarint(entries[i]);
+            }
+        }
+        return ByteBuffer.wrap(out.bytes, 0, out.size);
+    }
+
+    /**
+     * 将Token序列编码后写入文件，文件已存在时会被覆盖
+     *
+     * @param tokens
+     * @param source
+     * @param path
+     * @throws IOException
+     */
+    public static void write(TokenBuffer tokens, CharSequence source, Path path) throws IOException {
+        var buffer = encode(tokens, source);
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    /**
+     * 自动扩容的字节数组
+     */
+    private static class Output {
+        private byte[] bytes;
+        private int size;
+
+        private Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int n) {
+            if (size + n > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + n));
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        private void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        private void putInt(int value) {
+            ensure(Integer.BYTES);
+            for (var shift = 24; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        private void putLong(long value) {
+            ensure(Long.BYTES);
+            for (var shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        /**
+         * 无符号varint，每个字节的低7位为数据，最高位表示后面还有字节
+         */
+        private void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+}
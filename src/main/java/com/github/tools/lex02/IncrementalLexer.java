@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex02;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 增量词法分析，文本编辑后只从编辑点之前最后一个Token边界处开始重新分析，直到与旧的Token序列重新对齐为止
+ * <p>
+ * Token序列以间隙缓冲区的形式保存，间隙之前的Token记录绝对偏移量，间隙之后的Token记录到文本末尾的距离，
+ * 因此编辑点之后的Token无需逐个平移偏移量即可复用。文本同样以间隙缓冲区保存，词法分析器直接跨越间隙读取，
+ * 每次编辑的开销只与编辑位置移动的距离和重新分析的Token数量有关，与文本长度无关。状态转换表在Token之间总是回到初始状态，
+ * 重新分析出的Token只要与编辑区域之后的某个旧Token起始位置相同，之后的Token序列必然相同
+ * <p>
+ * 编辑过程中的文本经常处于不完整的状态，例如刚输入了字符串或注释的开头，因此始终以错误恢复模式进行分析，
+ * 词法错误以ERROR类型的Token保留在Token序列中，随着后续编辑被重新分析
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 11:40 下午
+ */
+public class IncrementalLexer {
+    private static final Lexer.TokenKind[] KINDS = Lexer.TokenKind.values();
+    /**
+     * 文本内容，间隙与Token序列的间隙各自独立移动
+     */
+    private Lexer.Text text;
+    private Lexer lexer;
+    /**
+     * 最近一次分析过程中产生的诊断信息
+     */
+    private Lexer.Diagnostics diagnostics = new Lexer.Diagnostics();
+    private byte[] kinds;
+    /**
+     * 间隙之前为绝对偏移量，间隙之后为到文本末尾的距离
+     */
+    private int[] starts;
+    private int[] lengths;
+    private int gapStart;
+    private int gapEnd;
+
+    public IncrementalLexer(String str) {
+        text = new Lexer.Text(str);
+        lexer = new Lexer(text, 0).recover(diagnostics);
+        kinds = new byte[16];
+        starts = new int[16];
+        lengths = new int[16];
+        gapEnd = kinds.length;
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            insert(token);
+        }
+    }
+
+    /**
+     * 应用一次文本编辑并增量更新Token序列，编辑总是生效，重新分析区域内的词法错误记录到诊断信息中
+     *
+     * @param offset   编辑位置
+     * @param removed  删除的字符数
+     * @param inserted 插入的文本
+     * @return 重新分析出的Token数量
+     */
+    public int edit(int offset, int removed, String inserted) {
+        Objects.requireNonNull(inserted);
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException(String.format("offset:%s,removed:%s,length:%s", offset, removed, text.length()));
+        }
+        var k = firstEndingAtOrAfter(offset);//从第一个可能受影响的Token开始重新分析
+        var restart = k == 0 ? 0 : end(k - 1);
+        moveGap(k);
+        text.replace(offset, removed, inserted.toCharArray());//间隙之后的Token记录的是到文本末尾的距离，不受影响
+        var editEnd = offset + inserted.length();
+        var tokens = new ArrayList<Lexer.Token>();
+        var from = gapEnd;
+        diagnostics.clear();
+        lexer.seek(restart);
+        while (true) {
+            var token = lexer.nextToken();
+            //丢弃与编辑区域重叠或已被新Token覆盖的旧Token
+            while (from < kinds.length && (Objects.isNull(token) ||
+                    relative(from) < editEnd || relative(from) < token.getOffset())) from++;
+            if (Objects.isNull(token)) break;
+            if (from < kinds.length && relative(from) == token.getOffset()) break;//重新对齐
+            tokens.add(token);
+        }
+        gapEnd = from;
+        tokens.forEach(this::insert);
+        return tokens.size();
+    }
+
+    /**
+     * 最近一次分析产生的诊断信息，构造时为整个文本，编辑后只包含重新分析的区域
+     *
+     * @return
+     */
+    public Lexer.Diagnostics diagnostics() {
+        return diagnostics;
+    }
+
+    public int size() {
+        return gapStart + kinds.length - gapEnd;
+    }
+
+    public Lexer.TokenKind kind(int i) {
+        return KINDS[kinds[physical(i)]];
+    }
+
+    public int offset(int i) {
+        return start(physical(i));
+    }
+
+    public int length(int i) {
+        return lengths[physical(i)];
+    }
+
+    public char[] morpheme(int i) {
+        var p = physical(i);
+        return text.decode(start(p), lengths[p]);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private int end(int i) {
+        var p = physical(i);
+        return start(p) + lengths[p];
+    }
+
+    private int physical(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException(String.format("index:%s,size:%s", i, size()));
+        return i < gapStart ? i : i + gapEnd - gapStart;
+    }
+
+    private int start(int p) {
+        return p < gapStart ? starts[p] : relative(p);
+    }
+
+    private int relative(int p) {
+        return text.length() - starts[p];
+    }
+
+    /**
+     * 二分查找第一个结束位置>=offset的Token
+     */
+    private int firstEndingAtOrAfter(int offset) {
+        int low = 0, high = size();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (end(mid) < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * 将间隙移动到下标k处，开销与两次编辑之间的距离成正比
+     */
+    private void moveGap(int k) {
+        while (gapStart > k) {
+            gapStart--;
+            gapEnd--;
+            kinds[gapEnd] = kinds[gapStart];
+            starts[gapEnd] = text.length() - starts[gapStart];
+            lengths[gapEnd] = lengths[gapStart];
+        }
+        while (gapStart < k) {
+            kinds[gapStart] = kinds[gapEnd];
+            starts[gapStart] = text.length() - starts[gapEnd];
+            lengths[gapStart] = lengths[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    private void insert(Lexer.Token token) {
+        if (gapStart == gapEnd) {
+            var capacity = kinds.length << 1;
+            var tail = kinds.length - gapEnd;
+            kinds = grow(kinds, capacity, tail);
+            starts = grow(starts, capacity, tail);
+            lengths = grow(lengths, capacity, tail);
+            gapEnd = capacity - tail;
+        }
+        kinds[gapStart] = (byte) token.getTokenKind().ordinal();
+        starts[gapStart] = (int) token.getOffset();
+        lengths[gapStart] = token.getLength();
+        gapStart++;
+    }
+
+    private byte[] grow(byte[] array, int capacity, int tail) {
+        var result = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, result, capacity - tail, tail);
+        return result;
+    }
+
+    private int[] grow(int[] array, int capacity, int tail) {
+        var result = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, result, capacity - tail, tail);
+        return result;
+    }
+}
@@ -18,6 +18,12 @@ package com.github.tools.lex02;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -28,256 +34,272 @@ import java.util.*;
  * @date created in 2020/4/28 2:47 下午
  */
 public class Lexer {
-    private char ch;
-    private int index;
-    private char[] sbuf;
-    private char[] codes;
-    private State state;
-    private TokenKind tokenKind;
-    private final byte EOI = 0x1A;
+    /**
+     * 源文件，字符数组、内存映射文件和可编辑文本统一通过Source读取
+     */
+    private Source source;
+    /**
+     * 读取位置，映射模式时为字节偏移量
+     */
+    private long index;
+    /**
+     * 错误恢复模式下收集诊断信息，为null时遇到词法错误直接抛出异常
+     */
+    private Diagnostics diagnostics;
+    private static final char EOI = 0x1A;
     private static Logger log = LoggerFactory.getLogger(Lexer.class);
+    /**
+     * 状态转换表，由TokenKind定义构建，全局共享一份
+     */
+    private static final Dfa DFA = Dfa.build();
 
     private Lexer(String str) {
-        Objects.requireNonNull(str);
-        codes = str.toCharArray();
-        codes = Arrays.copyOf(codes, codes.length + 1);
-        codes[codes.length - 1] = EOI;
+        this(toCodes(str), 0);
+    }
+
+    /**
+     * 共享同一份源文件内容，从指定索引处开始读取
+     *
+     * @param codes 以结束符号结尾的源文件内容
+     * @param index
+     */
+    Lexer(char[] codes, int index) {
+        this(new Chars(codes), index);
+    }
+
+    /**
+     * 从指定位置开始读取源文件
+     *
+     * @param source
+     * @param index
+     */
+    Lexer(Source source, long index) {
+        this.source = source;
+        this.index = index;
     }
 
     private Lexer init() {
-        state = State.INITIALIZE;
+        index = 0;
         return this;
     }
 
-    public Token nextToken() {
-        Token result = null;
-        loop:
-        do {
-            nextChar();
-            switch (state) {
-                case INITIALIZE:
-                    nextState();
-                    break;
-                case INT_1:
-                    if (!isAlpha() && !isDigit()) {
-                        result = nextState();
-                        break loop;
-                    }
-                    state = ch == 'n' ? State.INT_2 : State.IDENTIFIER;
-                    addMorpheme();
-                    break;
-                case INT_2:
-                    if (!isAlpha() && !isDigit()) {
-                        result = nextState();
-                        break loop;
-                    }
-                    state = ch == 't' ? State.INT_3 : State.IDENTIFIER;
-                    addMorpheme();
-                    break;
-                case INT_3:
-                    if (isBlank()) {
-                        tokenKind = TokenKind.INT;
-                        result = nextState();
-                        break loop;
-                    } else {
-                        addMorpheme();
-                        state = State.IDENTIFIER;
-                    }
-                    break;
-                case INTLITERAL:
-                    if (isDigit()) {
-                        addMorpheme();
-                    } else {
-                        result = nextState();
-                        break loop;
-                    }
-                    break;
-                case IDENTIFIER:
-                    if (isDigit() || isAlpha()) {
-                        addMorpheme();
-                    } else {
-                        result = nextState();
-                        break loop;
-                    }
-                    break;
-                case EQEQ_1:
-                    if (ch == '=') {
-                        addMorpheme();
-                        tokenKind = TokenKind.EQEQ;
-                        state = State.EQEQ_2;
-                    } else {
-                        result = nextState();
-                        break loop;
-                    }
-                    break;
-                case EQEQ_2:
-                case SEMI:
-                case EQ:
-                default:
-                    result = nextState();
-                    break loop;
-            }
-        } while (ch != EOI);
-        return result;
+    /**
+     * 转换为以结束符号结尾的源文件内容
+     *
+     * @param str
+     * @return
+     */
+    static char[] toCodes(String str) {
+        Objects.requireNonNull(str);
+        var codes = new char[str.length() + 1];
+        str.getChars(0, str.length(), codes, 0);
+        codes[codes.length - 1] = EOI;
+        return codes;
     }
 
-    private void parse() {
-        while (true) {
-            var token = nextToken();
-            if (Objects.isNull(token)) break;
-            log.info("{}", token);
-        }
+    int index() {
+        return Math.toIntExact(index);
     }
 
-    private void addMorpheme() {
-        sbuf = Objects.isNull(sbuf) ? new char[1] : Arrays.copyOf(sbuf, sbuf.length + 1);
-        sbuf[sbuf.length - 1] = ch;
+    void seek(int index) {
+        this.index = index;
     }
 
     /**
-     * 状态流转
+     * 创建并初始化一个词法分析器
+     *
+     * @param str
+     * @return
      */
-    private Token nextState() {
-        Token result = null;
-        if (Objects.nonNull(sbuf)) {
-            try {
-                result = new Token(sbuf, tokenKind);
-            } finally {
-                sbuf = null;
-            }
-        }
-        state = State.INITIALIZE;
-        switch (ch) {
-            //@formatter:off
-            case 'A': case 'B': case 'C': case 'D': case 'E':
-            case 'F': case 'G': case 'H': case 'I': case 'J':
-            case 'K': case 'L': case 'M': case 'N': case 'O':
-            case 'P': case 'Q': case 'R': case 'S': case 'T':
-            case 'U': case 'V': case 'W': case 'X': case 'Y':
-            case 'Z':
-            case 'a': case 'b': case 'c': case 'd': case 'e':
-            case 'f': case 'g': case 'h': case 'i': case 'j':
-            case 'k': case 'l': case 'm': case 'n': case 'o':
-            case 'p': case 'q': case 'r': case 's': case 't':
-            case 'u': case 'v': case 'w': case 'x': case 'y':
-            case 'z':
-            case '$': case '_':
-                addMorpheme();
-                switch (ch) {
-                    case 'i': state = State.INT_1; break;
-                    default : state = State.IDENTIFIER;
-                }
-                tokenKind = TokenKind.IDENTIFIER;
-                break;
-            case '0': case '1': case '2': case '3': case '4':
-            case '5': case '6': case '7': case '8': case '9':
-                addMorpheme();
-                state = State.INTLITERAL;
-                tokenKind = TokenKind.INTLITERAL;
-                break;
-            case '=':
-                addMorpheme();
-                state = State.EQEQ_1;//直接进入EQEQ状态,如果最后词素不为'=='，再回滚到EQ状态
-                tokenKind = TokenKind.EQ;
-                break;
-            case ';':
-                addMorpheme();
-                state = State.SEMI;
-                tokenKind = TokenKind.SEMI;
-                break;
-            default: state = State.INITIALIZE;
-            //@formatter:on
-        }
-        return result;
+    public static Lexer newLexer(String str) {
+        return new Lexer(str).init();
     }
 
     /**
-     * 验证是否是数字字面值
+     * 创建一个直接扫描内存映射文件的词法分析器，源文件按ASCII/UTF-8字节读取，不会拷贝到堆内
      *
+     * @param path
      * @return
+     * @throws IOException
      */
-    private boolean isDigit() {
-        //@formatter:off
-        switch (ch){
-            case '0': case '1': case '2': case '3': case '4':
-            case '5': case '6': case '7': case '8': case '9':
-               return true;
-            default: return false;
-        }
-        //@formatter:on
+    public static Lexer newLexer(Path path) throws IOException {
+        return new Lexer(Mapping.map(path), 0).init();
     }
 
     /**
-     * 验证是否是字幕
+     * 开启错误恢复模式，未闭合的字符串和无法识别的字符不再抛出异常或被静默丢弃，
+     * 而是记录诊断信息并返回ERROR类型的Token，随后在下一个换行符或分号处重新同步
      *
+     * @param diagnostics 诊断信息的收集容器，为null时关闭错误恢复模式
      * @return
      */
-    private boolean isAlpha() {
-        //@formatter:off
-        switch (ch){
-            case 'A': case 'B': case 'C': case 'D': case 'E':
-            case 'F': case 'G': case 'H': case 'I': case 'J':
-            case 'K': case 'L': case 'M': case 'N': case 'O':
-            case 'P': case 'Q': case 'R': case 'S': case 'T':
-            case 'U': case 'V': case 'W': case 'X': case 'Y':
-            case 'Z':
-            case 'a': case 'b': case 'c': case 'd': case 'e':
-            case 'f': case 'g': case 'h': case 'i': case 'j':
-            case 'k': case 'l': case 'm': case 'n': case 'o':
-            case 'p': case 'q': case 'r': case 's': case 't':
-            case 'u': case 'v': case 'w': case 'x': case 'y':
-            case 'z':
-            case '$': case '_':
-                return true;
-            default: return false;
+    public Lexer recover(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        return this;
+    }
+
+    /**
+     * 读取下一个Token，当读入到结束符号时返回null
+     * <p>
+     * 按最长匹配原则驱动状态转换表，每个字符只需一次字符类查表和一次状态转换查表，
+     * 无法转换时回退到最后一个接受状态
+     *
+     * @return
+     */
+    public Token nextToken() {
+        var source = this.source;
+        var table = DFA.table;
+        var accepts = DFA.accepts;
+        var width = DFA.width;
+        while (true) {
+            var pos = index;
+            var state = Dfa.START;
+            var accept = Dfa.DEAD;
+            var end = pos;
+            while ((state = table[state * width + Dfa.classOf(source.charAt(index))]) != Dfa.DEAD) {
+                index++;
+                if (Objects.nonNull(accepts[state])) {
+                    accept = state;
+                    end = index;
+                }
+            }
+            if (accept != Dfa.DEAD) {
+                index = end;//回退到最后一个接受状态
+                if (accepts[accept] == TokenKind.SLASH && (source.charAt(end) == '/' || source.charAt(end) == '*')) {
+                    var error = skipComment();
+                    if (Objects.isNull(error)) continue;
+                    return error;
+                }
+                return new Token(source, pos, (int) (end - pos), accepts[accept]);
+            }
+            if (index > pos) {//读入了字符却没有到达任何接受状态，只可能是未闭合的字符串
+                if (Objects.isNull(diagnostics)) throw new RuntimeException(String.format("词法解析错误:%s", new String(source.decode(pos, (int) (index - pos)))));
+                diagnostics.add(Diagnostics.Code.UNTERMINATED_STRING, pos, (int) (index - pos));
+                return new Token(source, pos, (int) (index - pos), TokenKind.ERROR);
+            }
+            if (source.charAt(index) == EOI) return null;
+            if (Objects.nonNull(diagnostics) && Dfa.classOf(source.charAt(index)) == Dfa.OTHER) {
+                while (!Dfa.isSync(Dfa.classOf(source.charAt(++index)))) ;
+                diagnostics.add(Diagnostics.Code.ILLEGAL_CHARACTER, pos, (int) (index - pos));
+                return new Token(source, pos, (int) (index - pos), TokenKind.ERROR);
+            }
+            index++;//空白符及无法识别的字符直接跳过
         }
-        //@formatter:on
     }
 
-    private boolean isBlank() {
-        //@formatter:off
-        switch (ch){
-            case ' ': case '\t': case '\n':
-                return true;
-            default: return false;
+    /**
+     * 状态转换表只识别到注释开头的'/'，注释的其余部分不经过状态转换表，直接成段跳过。
+     * 进入时index指向"//"或"/*"的第二个字符
+     *
+     * @return 错误恢复模式下未闭合的块注释返回一直延伸到结束符号的ERROR类型Token，其余情况返回null
+     */
+    private Token skipComment() {
+        var source = this.source;
+        var start = index - 1;
+        var i = index + 1;
+        if (source.charAt(index) == '/') {
+            for (var c = source.charAt(i); c != '\n' && c != '\r' && c != EOI; c = source.charAt(++i)) ;
+            index = i;//换行符留给下一次扫描
+            return null;
         }
-        //@formatter:on
+        while (true) {
+            for (var c = source.charAt(i); c != '*' && c != EOI; c = source.charAt(++i)) ;
+            if (source.charAt(i) == EOI) break;
+            if (source.charAt(++i) == '/') {
+                index = i + 1;
+                return null;
+            }
+        }
+        index = i;//未闭合的注释一直延伸到结束符号
+        if (Objects.isNull(diagnostics)) throw new RuntimeException(String.format("词法解析错误:%s", "/*"));
+        var length = (int) Math.min(i - start, Integer.MAX_VALUE);
+        diagnostics.add(Diagnostics.Code.UNTERMINATED_COMMENT, start, length);
+        return new Token(source, start, length, TokenKind.ERROR);
     }
 
-    private void nextChar() {
-        if (index < codes.length) {
-            ch = codes[index++];
+    private void parse() {
+        while (true) {
+            var token = nextToken();
+            if (Objects.isNull(token)) break;
+            log.info("{}", token);
         }
     }
 
-    static class Token {
+    public static class Token {
+        /**
+         * 源文件，可编辑的源文件中的词素会随后续编辑而变化
+         */
+        private Source source;
         /**
-         * Token对应的相关属性
+         * 词素在源文件中的起始索引，映射模式时为字节偏移量
          */
-        private char[] morpheme;
+        private long offset;
+        /**
+         * 词素长度，映射模式时为字节数
+         */
+        private int length;
         /**
          * Token类型
          */
         private TokenKind tokenKind;
 
-        private Token(char[] morpheme, TokenKind tokenKind) {
-            this.morpheme = morpheme;
+        private Token(Source source, long offset, int length, TokenKind tokenKind) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
             this.tokenKind = tokenKind;
         }
 
+        public TokenKind getTokenKind() {
+            return tokenKind;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * 按需从源文件中拷贝出词素
+         *
+         * @return
+         */
+        public char[] getMorpheme() {
+            return source.decode(offset, length);
+        }
+
         @Override
         public String toString() {
             return "Token{" +
-                    "morpheme=" + new String(morpheme) +
+                    "morpheme=" + new String(getMorpheme()) +
                     ", tokenKind=" + tokenKind +
                     '}';
         }
     }
 
-    enum TokenKind {
+    /**
+     * 支持Java的全部运算符，name为空的TokenKind由字符类规则识别，
+     * ERROR仅在错误恢复模式下出现
+     */
+    public enum TokenKind {
         //@formatter:off
-        IDENTIFIER, INT("int"), EQ("="), INTLITERAL("0-9"),
-        SEMI(";"), LT("<"), GT(">"), EQEQ("==");
+        IDENTIFIER, INT("int"), EQ("="), INTLITERAL,
+        SEMI(";"), LT("<"), GT(">"), EQEQ("=="),
+        LTEQ("<="), GTEQ(">="), PLUS("+"), SUB("-"),
+        STAR("*"), SLASH("/"), PLUSEQ("+="), SUBEQ("-="),
+        STAREQ("*="), SLASHEQ("/="),STRINGLITERAL,
+        TRUE("true"), FALSE("false"), BOOLEAN("boolean"),
+        BANG("!"), TILDE("~"), QUES("?"), COLON(":"),
+        COLCOL("::"), ARROW("->"), BANGEQ("!="), AMPAMP("&&"),
+        BARBAR("||"), PLUSPLUS("++"), SUBSUB("--"), AMP("&"),
+        BAR("|"), CARET("^"), PERCENT("%"), LTLT("<<"),
+        GTGT(">>"), GTGTGT(">>>"), AMPEQ("&="), BAREQ("|="),
+        CARETEQ("^="), PERCENTEQ("%="), LTLTEQ("<<="), GTGTEQ(">>="),
+        GTGTGTEQ(">>>="), MONKEYS_AT("@"),
+        ERROR;
         //@formatter:on
         private String name;
 
@@ -290,13 +312,408 @@ public class Lexer {
     }
 
     /**
-     * 保留字的各种状态流转
+     * 错误恢复模式下的诊断信息，存储空间预先分配，记录诊断信息时不创建对象，
+     * 超出容量的诊断信息只计数不保存
+     */
+    public static class Diagnostics {
+        private static final Code[] CODES = Code.values();
+        private byte[] codes;
+        /**
+         * 出错词素在整个输入中的偏移量
+         */
+        private long[] offsets;
+        /**
+         * 出错词素的长度
+         */
+        private int[] lengths;
+        private int size;
+        /**
+         * 因超出容量而被丢弃的诊断信息数量
+         */
+        private long dropped;
+
+        public Diagnostics() {
+            this(64);
+        }
+
+        public Diagnostics(int capacity) {
+            if (capacity < 0) throw new IllegalArgumentException(String.format("capacity:%s", capacity));
+            codes = new byte[capacity];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+        }
+
+        private void add(Code code, long offset, int length) {
+            if (size == codes.length) {
+                dropped++;
+                return;
+            }
+            codes[size] = (byte) code.ordinal();
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long dropped() {
+            return dropped;
+        }
+
+        public boolean isEmpty() {
+            return size == 0 && dropped == 0;
+        }
+
+        public void clear() {
+            size = 0;
+            dropped = 0;
+        }
+
+        public Code code(int i) {
+            return CODES[codes[checkIndex(i)]];
+        }
+
+        public long offset(int i) {
+            return offsets[checkIndex(i)];
+        }
+
+        public int length(int i) {
+            return lengths[checkIndex(i)];
+        }
+
+        private int checkIndex(int i) {
+            return Objects.checkIndex(i, size);
+        }
+
+        @Override
+        public String toString() {
+            var sb = new StringBuilder("Diagnostics{");
+            for (var i = 0; i < size; i++) {
+                sb.append(i == 0 ? "" : ", ").append(CODES[codes[i]].message).append('@').append(offsets[i]);
+            }
+            return sb.append(size == 0 ? "" : ", ").append("dropped:").append(dropped).append('}').toString();
+        }
+
+        public enum Code {
+            UNTERMINATED_STRING("未闭合的字符串"), ILLEGAL_CHARACTER("无法识别的字符"),
+            UNTERMINATED_COMMENT("未闭合的注释");
+            private String message;
+
+            Code(String message) {
+                this.message = message;
+            }
+
+            public String getMessage() {
+                return message;
+            }
+        }
+    }
+
+    /**
+     * 表驱动的确定有穷自动机，table[state * width + charClass]为下一个状态，
+     * accepts[state]为接受状态对应的TokenKind
+     */
+    static class Dfa {
+        /**
+         * 死状态，所有字符类都转换回自身
+         */
+        static final int DEAD = 0;
+        static final int START = 1;
+        //@formatter:off
+        /**
+         * 固定的字符类，保留字和操作符中出现的字符会在此之后各自分配独立的字符类
+         */
+        static final int OTHER = 0, BLANK = 1, EOL = 2, LETTER = 3, DIGIT = 4, QUOTE = 5, END = 6;
+        //@formatter:on
+        private static final byte[] CLASSES = new byte[128];
+        private int[] table;
+        private TokenKind[] accepts;
+        private int width;
+
+        /**
+         * 获取字符对应的字符类
+         *
+         * @param ch
+         * @return
+         */
+        static int classOf(char ch) {
+            return ch < 128 ? CLASSES[ch] : OTHER;
+        }
+
+        /**
+         * 错误恢复时的同步点：换行符、分号或结束符号
+         *
+         * @param c 字符类
+         * @return
+         */
+        static boolean isSync(int c) {
+            return c == EOL || c == END || c == CLASSES[';'];
+        }
+
+        /**
+         * 根据TokenKind定义构建状态转换表
+         *
+         * @return
+         */
+        private static Dfa build() {
+            //@formatter:off
+            for (var ch = 'a'; ch <= 'z'; ch++) CLASSES[ch] = LETTER;
+            for (var ch = 'A'; ch <= 'Z'; ch++) CLASSES[ch] = LETTER;
+            for (var ch = '0'; ch <= '9'; ch++) CLASSES[ch] = DIGIT;
+            CLASSES['$'] = LETTER; CLASSES['_'] = LETTER;
+            CLASSES[' '] = BLANK; CLASSES['\t'] = BLANK;
+            CLASSES['\n'] = EOL; CLASSES['\r'] = EOL;
+            CLASSES['\"'] = QUOTE; CLASSES[EOI] = END;
+            //@formatter:on
+            var width = END + 1;
+            var kinds = TokenKind.values();
+            for (var kind : kinds) {
+                if (Objects.isNull(kind.name)) continue;
+                for (var ch : kind.name.toCharArray()) {
+                    if (CLASSES[ch] == LETTER || CLASSES[ch] == OTHER) CLASSES[ch] = (byte) width++;
+                }
+            }
+            var identClasses = new boolean[width];//可以出现在标识符中的字符类
+            for (var ch = 0; ch < CLASSES.length; ch++) {
+                var c = CLASSES[ch];
+                if (c > END) identClasses[c] = Character.isLetterOrDigit(ch) || ch == '$' || ch == '_';
+            }
+            identClasses[LETTER] = identClasses[DIGIT] = true;
+
+            var rows = new ArrayList<int[]>();
+            var acceptList = new ArrayList<TokenKind>();
+            rows.add(new int[width]);//DEAD
+            acceptList.add(null);
+            rows.add(new int[width]);//START
+            acceptList.add(null);
+            var ident = newState(rows, acceptList, width, TokenKind.IDENTIFIER);
+            var number = newState(rows, acceptList, width, TokenKind.INTLITERAL);
+            var string = newState(rows, acceptList, width, null);
+            var stringEnd = newState(rows, acceptList, width, TokenKind.STRINGLITERAL);
+            var keywords = new BitSet();//由保留字前缀构成的状态
+
+            //保留字及操作符构成前缀树
+            for (var kind : kinds) {
+                if (Objects.isNull(kind.name)) continue;
+                var state = START;
+                var keyword = Character.isLetter(kind.name.charAt(0));
+                for (var ch : kind.name.toCharArray()) {
+                    var next = rows.get(state)[CLASSES[ch]];
+                    if (next == DEAD) {
+                        next = newState(rows, acceptList, width, keyword ? TokenKind.IDENTIFIER : null);
+                        rows.get(state)[CLASSES[ch]] = next;
+                        if (keyword) keywords.set(next);
+                    }
+                    state = next;
+                }
+                acceptList.set(state, kind);
+            }
+            //保留字前缀状态在其余标识符字符上转换到标识符状态
+            keywords.set(START);
+            keywords.set(ident);
+            for (var state = keywords.nextSetBit(0); state >= 0; state = keywords.nextSetBit(state + 1)) {
+                var row = rows.get(state);
+                for (var c = 0; c < width; c++) {
+                    if (identClasses[c] && row[c] == DEAD && (state != START || c != DIGIT)) row[c] = ident;
+                }
+            }
+            rows.get(START)[DIGIT] = number;
+            rows.get(number)[DIGIT] = number;
+            rows.get(START)[QUOTE] = string;
+            var row = rows.get(string);
+            for (var c = 0; c < width; c++) {
+                if (c != EOL && c != END) row[c] = string;
+            }
+            row[QUOTE] = stringEnd;
+
+            var dfa = new Dfa();
+            dfa.width = width;
+            dfa.table = new int[rows.size() * width];
+            for (var state = 0; state < rows.size(); state++) {
+                System.arraycopy(rows.get(state), 0, dfa.table, state * width, width);
+            }
+            dfa.accepts = acceptList.toArray(new TokenKind[0]);
+            log.debug("dfa states:{}, char classes:{}", rows.size(), width);
+            return dfa;
+        }
+
+        private static int newState(List<int[]> rows, List<TokenKind> acceptList, int width, TokenKind accept) {
+            rows.add(new int[width]);
+            acceptList.add(accept);
+            return rows.size() - 1;
+        }
+    }
+
+    /**
+     * 源文件的统一读取方式，超出末尾的位置读到结束符号，词法分析器只需一份扫描循环
      */
-    enum State {
-        INITIALIZE, INT_1, INT_2, INT_3, EQ, INTLITERAL, SEMI, EQEQ_1, EQEQ_2, IDENTIFIER;
+    interface Source {
+        /**
+         * 读取指定位置的字符
+         *
+         * @param index
+         * @return 位置到达末尾时返回结束符号
+         */
+        char charAt(long index);
+
+        /**
+         * 拷贝出指定区间的词素
+         *
+         * @param offset
+         * @param length
+         * @return
+         */
+        char[] decode(long offset, int length);
+    }
+
+    /**
+     * 以结束符号结尾的字符数组
+     */
+    static class Chars implements Source {
+        private char[] codes;
+
+        Chars(char[] codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        public char charAt(long index) {
+            return codes[(int) index];
+        }
+
+        @Override
+        public char[] decode(long offset, int length) {
+            return Arrays.copyOfRange(codes, (int) offset, (int) offset + length);
+        }
+    }
+
+    /**
+     * 按固定大小分段映射的源文件，突破单个MappedByteBuffer不能超过2GB的限制
+     */
+    static class Mapping implements Source {
+        static final int SHIFT = 30;
+        static final long MASK = (1L << SHIFT) - 1;
+        private ByteBuffer[] segments;
+        private long size;
+
+        private static Mapping map(Path path) throws IOException {
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                var mapping = new Mapping();
+                mapping.size = channel.size();
+                mapping.segments = new ByteBuffer[(int) ((mapping.size + MASK) >>> SHIFT)];
+                for (var i = 0; i < mapping.segments.length; i++) {
+                    var offset = (long) i << SHIFT;
+                    mapping.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(1L << SHIFT, mapping.size - offset));
+                }
+                return mapping;
+            }
+        }
+
+        @Override
+        public char charAt(long offset) {
+            return offset < size ? (char) (segments[(int) (offset >>> SHIFT)].get((int) (offset & MASK)) & 0xFF) : EOI;
+        }
+
+        /**
+         * 按UTF-8解码出指定区间的词素
+         *
+         * @param offset
+         * @param length
+         * @return
+         */
+        @Override
+        public char[] decode(long offset, int length) {
+            var bytes = new byte[length];
+            for (var i = 0; i < length; ) {
+                var p = offset + i;
+                var segment = segments[(int) (p >>> SHIFT)];
+                var n = Math.min(length - i, segment.limit() - (int) (p & MASK));
+                segment.duplicate().position((int) (p & MASK)).get(bytes, i, n);
+                i += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8).toCharArray();
+        }
+    }
+
+    /**
+     * 以间隙缓冲区保存的可编辑源文件，编辑时只移动间隙，开销与两次编辑之间的距离成正比而与文本长度无关。
+     * 最后一个元素固定为结束符号，读取文本末尾时恰好跨过间隙读到结束符号
+     */
+    static class Text implements Source {
+        private char[] chars;
+        private int gapStart;
+        private int gapEnd;
+
+        Text(String str) {
+            Objects.requireNonNull(str);
+            chars = new char[str.length() + 16 + 1];
+            str.getChars(0, str.length(), chars, 0);
+            chars[chars.length - 1] = EOI;
+            gapStart = str.length();
+            gapEnd = chars.length - 1;
+        }
+
+        int length() {
+            return chars.length - 1 - (gapEnd - gapStart);
+        }
+
+        /**
+         * 读取逻辑位置上的字符，index为length()时恰好跨过间隙读到结束符号
+         *
+         * @param index
+         * @return
+         */
+        @Override
+        public char charAt(long index) {
+            return chars[(int) (index < gapStart ? index : index + gapEnd - gapStart)];
+        }
+
+        /**
+         * 将间隙移动到offset处，删除其后的removed个字符并在间隙中写入新文本
+         *
+         * @param offset
+         * @param removed
+         * @param inserted
+         */
+        void replace(int offset, int removed, char[] inserted) {
+            if (offset < gapStart) {
+                System.arraycopy(chars, offset, chars, gapEnd - (gapStart - offset), gapStart - offset);
+            } else {
+                System.arraycopy(chars, gapEnd, chars, gapStart, offset - gapStart);
+            }
+            gapEnd += offset - gapStart + removed;
+            gapStart = offset;
+            if (gapEnd - gapStart < inserted.length) {
+                var tail = chars.length - gapEnd;
+                var capacity = Math.max(chars.length + (chars.length >> 1), chars.length - (gapEnd - gapStart) + inserted.length);
+                var result = Arrays.copyOf(chars, capacity);
+                System.arraycopy(chars, gapEnd, result, capacity - tail, tail);
+                chars = result;
+                gapEnd = capacity - tail;
+            }
+            System.arraycopy(inserted, 0, chars, gapStart, inserted.length);
+            gapStart += inserted.length;
+        }
+
+        @Override
+        public char[] decode(long offset, int length) {
+            var result = new char[length];
+            var head = (int) Math.max(0, Math.min(length, gapStart - offset));
+            System.arraycopy(chars, (int) offset, result, 0, head);
+            System.arraycopy(chars, (int) offset + head + gapEnd - gapStart, result, head, length - head);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return new String(decode(0, length()));
+        }
     }
 
     public static void main(String[] agrs) {
         new Lexer("int a=100;").init().parse();
     }
-}
\ No newline at end of file
+}
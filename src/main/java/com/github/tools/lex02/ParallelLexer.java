@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex02;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行词法分析，将源文件在换行符或';'处切分成若干块，在ForkJoinPool上并行分析后按顺序合并
+ * <p>
+ * 状态转换表在Token之间总是回到初始状态，因此两次分析只要在同一个位置处于初始状态，之后的Token序列必然相同。
+ * 合并时以串行结果为准，检查下一块在该位置是否也处于初始状态，如果切分点落在字符串内部导致无法对齐，
+ * 则从该位置开始串行重新分析，直到重新对齐为止，保证输出与串行调用nextToken()完全一致
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 11:10 下午
+ */
+public class ParallelLexer {
+    /**
+     * 小于此大小的输入直接串行分析
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    /**
+     * 寻找切分点时最多向后扫描的字符数
+     */
+    private static final int MAX_PROBE = 4 * 1024;
+
+    private ParallelLexer() {
+    }
+
+    public static List<Lexer.Token> lex(String str) {
+        return lex(str, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行分析出所有Token
+     *
+     * @param str
+     * @param pool
+     * @return
+     */
+    public static List<Lexer.Token> lex(String str, ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        var codes = Lexer.toCodes(str);
+        var chunks = split(codes, pool.getParallelism());
+        pool.submit(() -> ForkJoinTask.invokeAll(chunks)).join();
+        return merge(codes, chunks);
+    }
+
+    /**
+     * 按并行度切分源文件，切分点尽量落在换行符或';'之后
+     *
+     * @param codes
+     * @param parallelism
+     * @return
+     */
+    private static List<Chunk> split(char[] codes, int parallelism) {
+        var length = codes.length - 1;//不包含结束符号
+        var count = Math.max(1, Math.min(parallelism * 4, length / MIN_CHUNK_SIZE));
+        var size = length / count;
+        var chunks = new ArrayList<Chunk>(count);
+        var start = 0;
+        for (var i = 1; i < count; i++) {
+            var end = Math.max(i * size, start);
+            for (var limit = Math.min(end + MAX_PROBE, length); end < limit; end++) {
+                var ch = codes[end];
+                if (ch == '\n' || ch == ';') {
+                    end++;
+                    break;
+                }
+            }
+            chunks.add(new Chunk(codes, start, end));
+            start = end;
+        }
+        chunks.add(new Chunk(codes, start, length));
+        return chunks;
+    }
+
+    /**
+     * 以串行分析的结果为准按顺序合并各块的Token
+     *
+     * @param codes
+     * @param chunks
+     * @return
+     */
+    private static List<Lexer.Token> merge(char[] codes, List<Chunk> chunks) {
+        var result = new ArrayList<Lexer.Token>(chunks.stream().mapToInt(chunk -> chunk.tokens.size()).sum());
+        var lexer = new Lexer(codes, 0);
+        var index = 0;//串行分析处于初始状态的位置
+        for (var chunk : chunks) {
+            while (index < chunk.end) {
+                var from = chunk.align(index);
+                if (from >= 0) {
+                    result.addAll(chunk.tokens.subList(from, chunk.tokens.size()));
+                    if (!chunk.failed) {
+                        index = chunk.stop;
+                        break;
+                    }
+                    if (!chunk.tokens.isEmpty()) index = end(chunk.tokens.get(chunk.tokens.size() - 1));
+                }
+                //无法对齐，串行重新分析一个Token，真正的词法错误也会在这里抛出
+                lexer.seek(index);
+                var token = lexer.nextToken();
+                if (Objects.isNull(token)) return result;
+                result.add(token);
+                index = lexer.index();
+            }
+        }
+        return result;
+    }
+
+    private static int end(Lexer.Token token) {
+        return (int) token.getOffset() + token.getLength();
+    }
+
+    /**
+     * 一个切分块，从start处开始分析，直到遇到第一个起始位置>=end的Token为止
+     */
+    static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private char[] codes;
+        private int start;
+        private int end;
+        /**
+         * 所有起始位置<end的Token
+         */
+        private List<Lexer.Token> tokens;
+        /**
+         * 第一个起始位置>=end的Token的起始位置，读入到结束符号时为源文件长度
+         */
+        private int stop;
+        /**
+         * 切分点落在字符串内部时可能会分析失败
+         */
+        private boolean failed;
+
+        private Chunk(char[] codes, int start, int end) {
+            this.codes = codes;
+            this.start = start;
+            this.end = end;
+            tokens = new ArrayList<>();
+        }
+
+        @Override
+        protected void compute() {
+            var lexer = new Lexer(codes, start);
+            try {
+                while (true) {
+                    var token = lexer.nextToken();
+                    if (Objects.isNull(token)) {
+                        stop = codes.length;
+                        break;
+                    }
+                    if (token.getOffset() >= end) {
+                        stop = (int) token.getOffset();
+                        break;
+                    }
+                    tokens.add(token);
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+            }
+        }
+
+        /**
+         * 如果本块在index处也处于初始状态，返回之后第一个Token的下标，否则返回-1
+         *
+         * @param index
+         * @return
+         */
+        private int align(int index) {
+            if (index < start) return -1;
+            int low = 0, high = tokens.size();//二分查找第一个起始位置>=index的Token
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (tokens.get(mid).getOffset() < index) low = mid + 1;
+                else high = mid;
+            }
+            if (low == tokens.size() && failed) return -1;
+            var prev = low == 0 ? start : end(tokens.get(low - 1));
+            if (index < prev) return -1;
+            for (var i = prev; i < index; i++) {
+                if (codes[i] == '/') return -1;//index可能位于本块跳过的注释内部，并不处于初始状态
+            }
+            return low;
+        }
+    }
+}
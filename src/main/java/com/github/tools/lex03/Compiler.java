@@ -0,0 +1,380 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 将DFA编译为字节码的扫描器: 每个状态是一个基本块，ASCII字符上的转换编译为tableswitch，
+ * 其余字符按区间编译为if分支，JIT可以像普通Java代码一样内联和优化，不再需要逐字符查表
+ * <p>
+ * 生成的类使用49版本的class文件格式，由类型推导校验器校验，无需生成StackMapTable
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 6:30 上午
+ */
+class Compiler {
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static Logger log = LoggerFactory.getLogger(Compiler.class);
+    //@formatter:off
+    /**
+     * scan方法的局部变量
+     */
+    private static final int THIS = 0, CODES = 1, INDEX = 2, LIMIT = 3, ACCEPT = 4, END = 5, CH = 6, CLASSES = 7;
+    private static final int ICONST_M1 = 0x02, BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13,
+            ILOAD = 0x15, ALOAD = 0x19, IALOAD = 0x2e, CALOAD = 0x34, ISTORE = 0x36, ASTORE = 0x3a, LSHL = 0x79, LUSHR = 0x7d,
+            LOR = 0x81, IINC = 0x84, I2L = 0x85, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2, IF_ICMPLE = 0xa4,
+            GOTO = 0xa7, TABLESWITCH = 0xaa, LRETURN = 0xad, RETURN = 0xb1, GETSTATIC = 0xb2, INVOKESPECIAL = 0xb7;
+    //@formatter:on
+    /**
+     * 生成类中保存ASCII字符类映射表的静态字段
+     */
+    private static final String FIELD = "CLASSES";
+    /**
+     * 超过该字节数的方法不会被JIT编译
+     */
+    private static final int HUGE_METHOD_LIMIT = 8000;
+
+    /**
+     * 编译DFA并加载生成的扫描器
+     *
+     * @param dfa
+     * @return
+     */
+    static Scanner compile(Dfa dfa) {
+        var name = Compiler.class.getPackageName().replace('.', '/') + "/CompiledScanner" + ids.incrementAndGet();
+        var bytes = new ClassFile(name).emit(dfa);
+        try {
+            var type = MethodHandles.lookup().defineClass(bytes);
+            type.getField(FIELD).set(null, dfa.asciiClasses().clone());
+            log.debug("compiled {} states into {}, {} bytes", dfa.states(), type.getName(), bytes.length);
+            return (Scanner) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 最简单的class文件生成器，只包含常量池、默认构造方法和scan方法
+     */
+    private static class ClassFile {
+        private String name;
+        private List<Object[]> constants = new ArrayList<>();
+        private Map<List<Object>, Integer> indexes = new HashMap<>();
+        private int size = 1;//常量池索引从1开始
+
+        private ClassFile(String name) {
+            this.name = name;
+        }
+
+        private byte[] emit(Dfa dfa) {
+            var thisClass = classRef(name);
+            var superClass = classRef("java/lang/Object");
+            var scanner = classRef(Scanner.class.getName().replace('.', '/'));
+            var init = constant(10, superClass, nameAndType("<init>", "()V"));
+            var constructor = new Code(this);
+            constructor.op(ALOAD).u1(THIS);
+            constructor.op(INVOKESPECIAL).u2(init);
+            constructor.op(RETURN);
+            var scan = scan(dfa);
+            var codeName = utf8("Code");
+            var initName = utf8("<init>");
+            var initType = utf8("()V");
+            var scanName = utf8("scan");
+            var scanType = utf8("([CII)J");
+            var fieldName = utf8(FIELD);
+            var fieldType = utf8("[I");
+            try (var bytes = new ByteArrayOutputStream(); var out = new DataOutputStream(bytes)) {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(49);
+                out.writeShort(size);
+                for (var constant : constants) {
+                    var tag = (int) constant[0];
+                    out.writeByte(tag);
+                    if (tag == 1) {
+                        var utf = ((String) constant[1]).getBytes(StandardCharsets.UTF_8);
+                        out.writeShort(utf.length);
+                        out.write(utf);
+                    } else if (tag == 3) {
+                        out.writeInt((int) constant[1]);
+                    } else {
+                        for (var i = 1; i < constant.length; i++) {
+                            out.writeShort((int) constant[i]);
+                        }
+                    }
+                }
+                out.writeShort(0x0031);//public final super
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(scanner);
+                out.writeShort(1);
+                out.writeShort(0x0009);//public static
+                out.writeShort(fieldName);
+                out.writeShort(fieldType);
+                out.writeShort(0);
+                out.writeShort(2);
+                method(out, initName, initType, codeName, constructor, 1, 1);
+                method(out, scanName, scanType, codeName, scan, 6, 8);
+                out.writeShort(0);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void method(DataOutputStream out, int name, int type, int codeName, Code code, int maxStack, int maxLocals) throws IOException {
+            var bytes = code.bytes();
+            out.writeShort(0x0001);//public
+            out.writeShort(name);
+            out.writeShort(type);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + bytes.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        /**
+         * 生成scan方法，每个状态对应一个基本块，entry标签处记录接受状态，body标签处读入下一个字符并分派
+         */
+        private Code scan(Dfa dfa) {
+            var code = new Code(this);
+            var states = dfa.states();
+            var table = dfa.table();
+            var width = dfa.width();
+            var accepts = dfa.accepts();
+            var asciiClasses = dfa.asciiClasses();
+            var entries = new int[states];
+            var bodies = new int[states];
+            for (var state = 0; state < states; state++) {
+                entries[state] = code.label();
+                bodies[state] = accepts[state] >= 0 ? code.label() : entries[state];
+            }
+            var done = code.label();
+            entries[Dfa.DEAD] = bodies[Dfa.DEAD] = done;
+
+            code.op(GETSTATIC).u2(constant(9, classRef(name), nameAndType(FIELD, "[I"))).op(ASTORE).u1(CLASSES);
+            code.op(ICONST_M1).op(ISTORE).u1(ACCEPT);
+            code.op(ILOAD).u1(INDEX).op(ISTORE).u1(END);
+            code.jump(GOTO, bodies[dfa.start()]);
+            for (var state = 0; state < states; state++) {
+                if (state == Dfa.DEAD) continue;
+                code.bind(entries[state]);
+                if (accepts[state] >= 0) {
+                    code.push(accepts[state]).op(ISTORE).u1(ACCEPT);
+                    code.op(ILOAD).u1(INDEX).op(ISTORE).u1(END);
+                    code.bind(bodies[state]);
+                }
+                code.op(ILOAD).u1(INDEX).op(ILOAD).u1(LIMIT).jump(IF_ICMPGE, done);
+                code.op(ALOAD).u1(CODES).op(ILOAD).u1(INDEX).op(CALOAD).op(ISTORE).u1(CH);
+                code.op(IINC).u1(INDEX).u1(1);
+
+                //ASCII字符经CLASSES映射为字符类后按字符类分派，非ASCII字符按区间取目标状态，相邻且目标相同的区间合并
+                var targets = new int[width];
+                int lo = -1, hi = -1;
+                for (var ch = 0; ch < 128; ch++) {
+                    var c = asciiClasses[ch];
+                    if (table[state * width + c] == Dfa.DEAD) continue;
+                    if (lo < 0 || c < lo) lo = c;
+                    if (c > hi) hi = c;
+                }
+                var wide = new ArrayList<int[]>();
+                var bounds = dfa.bounds();
+                var boundClasses = dfa.boundClasses();
+                for (var i = 0; i < bounds.length; i++) {
+                    var from = Math.max(bounds[i], 128);
+                    var to = i + 1 < bounds.length ? bounds[i + 1] - 1 : Nfa.MAX_CHAR;
+                    if (from > to) continue;
+                    var target = table[state * width + boundClasses[i]];
+                    if (target == Dfa.DEAD) continue;
+                    var last = wide.isEmpty() ? null : wide.get(wide.size() - 1);
+                    if (Objects.nonNull(last) && last[2] == target && last[1] + 1 == from) {
+                        last[1] = to;
+                    } else {
+                        wide.add(new int[]{from, to, target});
+                    }
+                }
+                var wideLabel = wide.isEmpty() ? done : code.label();
+                code.op(ILOAD).u1(CH).push(128).jump(IF_ICMPGE, wideLabel);
+                if (lo < 0) {
+                    code.jump(GOTO, done);
+                } else {
+                    for (var c = lo; c <= hi; c++) {
+                        targets[c - lo] = entries[table[state * width + c]];
+                    }
+                    code.op(ALOAD).u1(CLASSES).op(ILOAD).u1(CH).op(IALOAD);
+                    code.tableswitch(lo, Arrays.copyOf(targets, hi - lo + 1), done);
+                }
+                if (wide.isEmpty()) continue;
+                code.bind(wideLabel);
+                for (var range : wide) {
+                    var next = code.label();
+                    code.op(ILOAD).u1(CH).push(range[0]).jump(IF_ICMPLT, next);
+                    code.op(ILOAD).u1(CH).push(range[1]).jump(IF_ICMPLE, entries[range[2]]);
+                    code.bind(next);
+                }
+                code.jump(GOTO, done);
+            }
+            //返回 (long) end << 32 | accept & 0xFFFFFFFF
+            code.bind(done);
+            code.op(ILOAD).u1(END).op(I2L).op(BIPUSH).u1(32).op(LSHL);
+            code.op(ILOAD).u1(ACCEPT).op(I2L).op(BIPUSH).u1(32).op(LSHL).op(BIPUSH).u1(32).op(LUSHR);
+            code.op(LOR).op(LRETURN);
+            return code.resolve();
+        }
+
+        private int utf8(String value) {
+            return constant(1, value);
+        }
+
+        private int classRef(String name) {
+            return constant(7, utf8(name));
+        }
+
+        private int nameAndType(String name, String type) {
+            return constant(12, utf8(name), utf8(type));
+        }
+
+        private int integer(int value) {
+            return constant(3, value);
+        }
+
+        private int constant(Object... entry) {
+            return indexes.computeIfAbsent(Arrays.asList(entry), key -> {
+                constants.add(entry);
+                return size++;
+            });
+        }
+    }
+
+    /**
+     * 方法体的字节码，跳转目标用标签表示，全部生成后再回填偏移量
+     */
+    private static class Code {
+        private byte[] buf = new byte[256];
+        private int length;
+        private int[] labels = new int[16];
+        private int labelCount;
+        /**
+         * 待回填的跳转，每个元素为{指令地址, 偏移量地址, 标签, 偏移量字节数}
+         */
+        private List<int[]> fixups = new ArrayList<>();
+        /**
+         * 超出short范围的常量需要放入常量池
+         */
+        private ClassFile pool;
+
+        private Code(ClassFile pool) {
+            this.pool = pool;
+        }
+
+        private Code op(int opcode) {
+            return u1(opcode);
+        }
+
+        private Code u1(int value) {
+            if (length == buf.length) buf = Arrays.copyOf(buf, buf.length << 1);
+            buf[length++] = (byte) value;
+            return this;
+        }
+
+        private Code u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        private Code u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        private Code push(int value) {
+            if (value >= -128 && value <= 127) return op(BIPUSH).u1(value);
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) return op(SIPUSH).u2(value);
+            return op(LDC_W).u2(pool.integer(value));
+        }
+
+        private int label() {
+            if (labelCount == labels.length) labels = Arrays.copyOf(labels, labelCount << 1);
+            labels[labelCount] = -1;
+            return labelCount++;
+        }
+
+        private void bind(int label) {
+            labels[label] = length;
+        }
+
+        private Code jump(int opcode, int label) {
+            fixups.add(new int[]{length, length + 1, label, 2});
+            return op(opcode).u2(0);
+        }
+
+        private Code tableswitch(int low, int[] targets, int defaultLabel) {
+            var insn = length;
+            op(TABLESWITCH);
+            while (length % 4 != 0) u1(0);
+            fixups.add(new int[]{insn, length, defaultLabel, 4});
+            u4(0);
+            u4(low);
+            u4(low + targets.length - 1);
+            for (var target : targets) {
+                fixups.add(new int[]{insn, length, target, 4});
+                u4(0);
+            }
+            return this;
+        }
+
+        private Code resolve() {
+            for (var fixup : fixups) {
+                var offset = labels[fixup[2]] - fixup[0];
+                if (fixup[3] == 2) {
+                    if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                        throw new IllegalStateException(String.format("跳转偏移量超出范围:%s", offset));
+                    }
+                    buf[fixup[1]] = (byte) (offset >>> 8);
+                    buf[fixup[1] + 1] = (byte) offset;
+                } else {
+                    for (var i = 0; i < 4; i++) {
+                        buf[fixup[1] + i] = (byte) (offset >>> (24 - i * 8));
+                    }
+                }
+            }
+            if (length > 0xFFFF) throw new IllegalStateException(String.format("方法体过大:%s", length));
+            if (length > HUGE_METHOD_LIMIT) log.warn("scan方法共{}字节，超出JIT的编译上限，将以解释方式执行", length);
+            return this;
+        }
+
+        private byte[] bytes() {
+            return Arrays.copyOf(buf, length);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * 由词法规则生成的最小化确定有穷自动机，table[state * width + charClass]为下一个状态，
+ * accepts[state]为接受状态对应的规则序号
+ * <p>
+ * 生成过程: 正则表达式 → Thompson NFA → 子集构造 → Hopcroft最小化 → 合并等价的字符类
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 4:50 上午
+ */
+public class Dfa {
+    /**
+     * 死状态，所有字符类都转换回自身
+     */
+    static final int DEAD = 0;
+    private static Logger log = LoggerFactory.getLogger(Dfa.class);
+    private int start;
+    private int[] table;
+    private int width;
+    /**
+     * 接受状态对应的规则序号，非接受状态为-1
+     */
+    private int[] accepts;
+    private String[] names;
+    private boolean[] skips;
+    private boolean[] errors;
+    /**
+     * ASCII字符对应的字符类
+     */
+    private int[] asciiClasses;
+    /**
+     * 非ASCII字符按区间划分字符类，bounds[i]为第i个区间的起始字符
+     */
+    private int[] bounds;
+    private int[] boundClasses;
+    /**
+     * 编译生成的扫描器，首次使用时生成，之后由所有词法分析器共享
+     */
+    private volatile Scanner scanner;
+
+    private Dfa() {
+    }
+
+    /**
+     * 根据词法规则生成DFA
+     *
+     * @param spec
+     * @return
+     */
+    public static Dfa generate(Spec spec) {
+        Objects.requireNonNull(spec);
+        var rules = spec.rules();
+        if (rules.isEmpty()) throw new IllegalArgumentException("rules is empty");
+        var nfa = Nfa.build(spec);
+        var bounds = bounds(nfa);
+        var subset = new Subset(nfa, bounds);
+        var width = bounds.length - 1;
+        var blocks = minimize(subset.table, subset.accepts, width);
+
+        //最小化后的状态重新编号，死状态为0，初态为1
+        var size = 0;
+        var blockStates = new int[subset.size];
+        Arrays.fill(blockStates, -1);
+        blockStates[blocks[DEAD]] = size++;
+        if (blockStates[blocks[Subset.START]] < 0) blockStates[blocks[Subset.START]] = size++;
+        for (var state = 0; state < subset.size; state++) {
+            if (blockStates[blocks[state]] < 0) blockStates[blocks[state]] = size++;
+        }
+        var table = new int[size * width];
+        var accepts = new int[size];
+        for (var state = 0; state < subset.size; state++) {
+            var to = blockStates[blocks[state]];
+            accepts[to] = subset.accepts[state];
+            for (var c = 0; c < width; c++) {
+                table[to * width + c] = blockStates[blocks[subset.table[state * width + c]]];
+            }
+        }
+
+        //转换完全相同的区间合并为同一个字符类
+        var classes = new int[width];
+        var columns = new ArrayList<Integer>();//每个字符类的代表区间
+        for (var c = 0; c < width; c++) {
+            classes[c] = -1;
+            for (var i = 0; i < columns.size() && classes[c] < 0; i++) {
+                if (sameColumn(table, size, width, c, columns.get(i))) classes[c] = i;
+            }
+            if (classes[c] < 0) {
+                classes[c] = columns.size();
+                columns.add(c);
+            }
+        }
+        var dfa = new Dfa();
+        dfa.start = blockStates[blocks[Subset.START]];
+        dfa.width = columns.size();
+        dfa.table = new int[size * dfa.width];
+        for (var state = 0; state < size; state++) {
+            for (var c = 0; c < dfa.width; c++) {
+                dfa.table[state * dfa.width + c] = table[state * width + columns.get(c)];
+            }
+        }
+        dfa.accepts = accepts;
+        dfa.names = rules.stream().map(Spec.Rule::name).toArray(String[]::new);
+        dfa.skips = new boolean[rules.size()];
+        dfa.errors = new boolean[rules.size()];
+        for (var i = 0; i < rules.size(); i++) {
+            dfa.skips[i] = rules.get(i).skip();
+            dfa.errors[i] = rules.get(i).error();
+        }
+        dfa.asciiClasses = new int[128];
+        for (var ch = 0; ch < 128; ch++) {
+            dfa.asciiClasses[ch] = classes[interval(bounds, ch)];
+        }
+        //相邻且字符类相同的区间合并
+        var mergedBounds = new int[width];
+        var mergedClasses = new int[width];
+        var merged = 0;
+        for (var c = 0; c < width; c++) {
+            if (merged > 0 && mergedClasses[merged - 1] == classes[c]) continue;
+            mergedBounds[merged] = bounds[c];
+            mergedClasses[merged++] = classes[c];
+        }
+        dfa.bounds = Arrays.copyOf(mergedBounds, merged);
+        dfa.boundClasses = Arrays.copyOf(mergedClasses, merged);
+        log.debug("nfa states:{}, dfa states:{}, minimized states:{}, char classes:{}",
+                nfa.size(), subset.size, size, dfa.width);
+        return dfa;
+    }
+
+    /**
+     * 以所有转换区间的端点切分字符集，bounds[i]到bounds[i+1]-1为第i个区间，
+     * 同一区间内的字符在NFA中的转换完全相同
+     */
+    private static int[] bounds(Nfa nfa) {
+        var points = new TreeSet<Integer>();
+        points.add(0);
+        points.add(Nfa.MAX_CHAR + 1);
+        for (var state = 0; state < nfa.size(); state++) {
+            for (var edge : nfa.state(state).edges()) {
+                points.add(edge[0]);
+                points.add(edge[1] + 1);
+            }
+        }
+        return points.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int interval(int[] bounds, int ch) {
+        var i = Arrays.binarySearch(bounds, ch);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private static boolean sameColumn(int[] table, int size, int width, int a, int b) {
+        for (var state = 0; state < size; state++) {
+            if (table[state * width + a] != table[state * width + b]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hopcroft最小化，初始划分按接受的规则分组，返回每个状态所属的等价类
+     *
+     * @param delta   完整的状态转换表
+     * @param accepts
+     * @param width   字符类数量
+     * @return
+     */
+    private static int[] minimize(int[] delta, int[] accepts, int width) {
+        var n = accepts.length;
+        //逆向转换表: 对每个字符类c和状态t，sources中inverse[c*n+t]到inverse[c*n+t+1]为转换到t的状态
+        var inverse = new int[width * n + 1];
+        for (var s = 0; s < n; s++) {
+            for (var c = 0; c < width; c++) {
+                inverse[c * n + delta[s * width + c] + 1]++;
+            }
+        }
+        for (var i = 1; i < inverse.length; i++) {
+            inverse[i] += inverse[i - 1];
+        }
+        var sources = new int[width * n];
+        var fill = Arrays.copyOf(inverse, inverse.length);
+        for (var s = 0; s < n; s++) {
+            for (var c = 0; c < width; c++) {
+                sources[fill[c * n + delta[s * width + c]]++] = s;
+            }
+        }
+
+        //每个等价类占据elements中的一段连续区间[first, past)，被标记的状态移动到区间头部
+        var elements = new int[n];
+        var location = new int[n];
+        var blockOf = new int[n];
+        var first = new int[n];
+        var past = new int[n];
+        var marked = new int[n];
+        var order = new Integer[n];
+        for (var s = 0; s < n; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, Comparator.comparingInt(s -> accepts[s]));
+        var blocks = 0;
+        for (var i = 0; i < n; i++) {
+            var s = order[i];
+            if (i == 0 || accepts[s] != accepts[order[i - 1]]) {
+                if (blocks > 0) past[blocks - 1] = i;
+                first[blocks++] = i;
+            }
+            elements[i] = s;
+            location[s] = i;
+            blockOf[s] = blocks - 1;
+        }
+        past[blocks - 1] = n;
+
+        var pending = new boolean[n * width];
+        var work = new int[n * width];
+        var top = 0;
+        for (var b = 0; b < blocks; b++) {
+            for (var c = 0; c < width; c++) {
+                pending[b * width + c] = true;
+                work[top++] = b * width + c;
+            }
+        }
+        var splitter = new int[n];
+        var touched = new int[n];
+        while (top > 0) {
+            var item = work[--top];
+            pending[item] = false;
+            var a = item / width;
+            var c = item % width;
+            var count = past[a] - first[a];
+            System.arraycopy(elements, first[a], splitter, 0, count);//标记过程会移动元素，先拷贝出来
+            var touchedCount = 0;
+            for (var i = 0; i < count; i++) {
+                var t = splitter[i];
+                for (var j = inverse[c * n + t]; j < inverse[c * n + t + 1]; j++) {
+                    var p = sources[j];
+                    var b = blockOf[p];
+                    var slot = first[b] + marked[b];
+                    if (location[p] < slot) continue;//已标记
+                    if (marked[b] == 0) touched[touchedCount++] = b;
+                    var q = elements[slot];
+                    elements[slot] = p;
+                    elements[location[p]] = q;
+                    location[q] = location[p];
+                    location[p] = slot;
+                    marked[b]++;
+                }
+            }
+            for (var i = 0; i < touchedCount; i++) {
+                var b = touched[i];
+                var m = marked[b];
+                marked[b] = 0;
+                if (m == past[b] - first[b]) continue;
+                var nb = blocks++;
+                first[nb] = first[b];
+                past[nb] = first[b] + m;
+                first[b] = past[nb];
+                for (var j = first[nb]; j < past[nb]; j++) {
+                    blockOf[elements[j]] = nb;
+                }
+                for (var d = 0; d < width; d++) {
+                    //b已在待处理集合中时两半都需要处理，否则只处理较小的一半
+                    var target = pending[b * width + d] || m <= past[b] - first[b] ? nb : b;
+                    if (pending[target * width + d]) continue;
+                    pending[target * width + d] = true;
+                    work[top++] = target * width + d;
+                }
+            }
+        }
+        return blockOf;
+    }
+
+    /**
+     * 获取字符对应的字符类
+     *
+     * @param ch
+     * @return
+     */
+    int classOf(char ch) {
+        return ch < 128 ? asciiClasses[ch] : boundClasses[interval(bounds, ch)];
+    }
+
+    int[] bounds() {
+        return bounds;
+    }
+
+    int[] boundClasses() {
+        return boundClasses;
+    }
+
+    /**
+     * 获取编译生成的扫描器，每个DFA只编译一次
+     *
+     * @return
+     */
+    Scanner scanner() {
+        var scanner = this.scanner;
+        if (Objects.nonNull(scanner)) return scanner;
+        synchronized (this) {
+            if (Objects.isNull(this.scanner)) this.scanner = Compiler.compile(this);
+            return this.scanner;
+        }
+    }
+
+    int[] asciiClasses() {
+        return asciiClasses;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int[] table() {
+        return table;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int[] accepts() {
+        return accepts;
+    }
+
+    boolean skip(int rule) {
+        return skips[rule];
+    }
+
+    boolean error(int rule) {
+        return errors[rule];
+    }
+
+    String name(int rule) {
+        return names[rule];
+    }
+
+    /**
+     * 最小化后的状态数量，包含死状态
+     *
+     * @return
+     */
+    public int states() {
+        return accepts.length;
+    }
+
+    /**
+     * 合并后的字符类数量
+     *
+     * @return
+     */
+    public int classes() {
+        return width;
+    }
+
+    /**
+     * 子集构造，状态0为空集即死状态，状态1为初态的ε闭包
+     */
+    private static class Subset {
+        private static final int START = 1;
+        private int[] table;
+        private int[] accepts;
+        private int size;
+
+        private Subset(Nfa nfa, int[] bounds) {
+            var width = bounds.length - 1;
+            //每条NFA转换覆盖的区间范围
+            var ranges = new ArrayList<int[][]>();
+            for (var state = 0; state < nfa.size(); state++) {
+                var edges = nfa.state(state).edges();
+                var range = new int[edges.size()][];
+                for (var i = 0; i < range.length; i++) {
+                    var edge = edges.get(i);
+                    range[i] = new int[]{interval(bounds, edge[0]), interval(bounds, edge[1]), edge[2]};
+                }
+                ranges.add(range);
+            }
+            var sets = new ArrayList<BitSet>();
+            var ids = new HashMap<BitSet, Integer>();
+            var rows = new ArrayList<int[]>();
+            var acceptList = new ArrayList<Integer>();
+            var empty = new BitSet();
+            sets.add(empty);
+            ids.put(empty, DEAD);
+            rows.add(new int[width]);
+            acceptList.add(-1);
+            var start = new BitSet();
+            start.set(nfa.start());
+            closure(nfa, start);
+            sets.add(start);
+            ids.put(start, START);
+            rows.add(new int[width]);
+            acceptList.add(accept(nfa, start));
+            for (var d = START; d < sets.size(); d++) {
+                var targets = new BitSet[width];
+                var set = sets.get(d);
+                for (var s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                    for (var range : ranges.get(s)) {
+                        for (var c = range[0]; c <= range[1]; c++) {
+                            if (Objects.isNull(targets[c])) targets[c] = new BitSet();
+                            targets[c].set(range[2]);
+                        }
+                    }
+                }
+                var row = rows.get(d);
+                for (var c = 0; c < width; c++) {
+                    if (Objects.isNull(targets[c])) continue;
+                    var target = closure(nfa, targets[c]);
+                    var id = ids.get(target);
+                    if (Objects.isNull(id)) {
+                        id = sets.size();
+                        sets.add(target);
+                        ids.put(target, id);
+                        rows.add(new int[width]);
+                        acceptList.add(accept(nfa, target));
+                    }
+                    row[c] = id;
+                }
+            }
+            size = sets.size();
+            table = new int[size * width];
+            accepts = new int[size];
+            for (var d = 0; d < size; d++) {
+                System.arraycopy(rows.get(d), 0, table, d * width, width);
+                accepts[d] = acceptList.get(d);
+            }
+        }
+
+        /**
+         * 就地计算ε闭包
+         */
+        private static BitSet closure(Nfa nfa, BitSet set) {
+            var stack = new ArrayDeque<Integer>();
+            set.stream().forEach(stack::push);
+            while (!stack.isEmpty()) {
+                for (var to : nfa.state(stack.pop()).epsilons()) {
+                    if (set.get(to)) continue;
+                    set.set(to);
+                    stack.push(to);
+                }
+            }
+            return set;
+        }
+
+        /**
+         * 状态集合中序号最小即优先级最高的规则
+         */
+        private static int accept(Nfa nfa, BitSet set) {
+            var accept = -1;
+            for (var s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                var rule = nfa.state(s).accept();
+                if (rule >= 0 && (accept < 0 || rule < accept)) accept = rule;
+            }
+            return accept;
+        }
+    }
+}
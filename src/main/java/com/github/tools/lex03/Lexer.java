@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 由词法规则生成的通用词法分析器，只负责按最长匹配原则驱动生成的状态转换表，
+ * 新增Token只需修改Spec，无需改动分析器
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 5:30 上午
+ */
+public class Lexer {
+    private Dfa dfa;
+    /**
+     * 编译模式下使用的扫描器，解释模式时为null
+     */
+    private Scanner scanner;
+    private char[] codes;
+    private int index;
+    private static Logger log = LoggerFactory.getLogger(Lexer.class);
+
+    private Lexer(Dfa dfa, String str, Mode mode) {
+        Objects.requireNonNull(dfa);
+        Objects.requireNonNull(str);
+        Objects.requireNonNull(mode);
+        this.dfa = dfa;
+        if (mode == Mode.COMPILED) scanner = dfa.scanner();
+        codes = str.toCharArray();
+    }
+
+    /**
+     * 创建一个由指定DFA驱动的词法分析器，DFA不可变，可以被多个词法分析器共享
+     *
+     * @param dfa
+     * @param str
+     * @return
+     */
+    public static Lexer newLexer(Dfa dfa, String str) {
+        return newLexer(dfa, str, Mode.INTERPRETED);
+    }
+
+    /**
+     * 创建一个词法分析器，并指定DFA的执行方式
+     *
+     * @param dfa
+     * @param str
+     * @param mode
+     * @return
+     */
+    public static Lexer newLexer(Dfa dfa, String str, Mode mode) {
+        return new Lexer(dfa, str, mode);
+    }
+
+    /**
+     * 读取下一个Token，读取完毕时返回null
+     *
+     * @return
+     */
+    public Token nextToken() {
+        if (Objects.nonNull(scanner)) return nextCompiledToken();
+        var dfa = this.dfa;
+        var table = dfa.table();
+        var accepts = dfa.accepts();
+        var width = dfa.width();
+        var ascii = dfa.asciiClasses();
+        var codes = this.codes;
+        while (index < codes.length) {
+            var pos = index;
+            var state = dfa.start();
+            var accept = -1;
+            var end = pos;
+            for (var lim = codes.length; index < lim; index++) {
+                var ch = codes[index];
+                if ((state = table[state * width + (ch < 128 ? ascii[ch] : dfa.classOf(ch))]) == Dfa.DEAD) break;
+                if (accepts[state] >= 0) {
+                    accept = accepts[state];
+                    end = index + 1;
+                }
+            }
+            if (accept < 0) {
+                throw new RuntimeException(String.format("词法解析错误:%s", new String(codes, pos, Math.max(index - pos, 1))));
+            }
+            index = end;//回退到最后一个接受状态
+            if (dfa.skip(accept)) continue;
+            if (dfa.error(accept)) throw new RuntimeException(String.format("词法解析错误:%s", dfa.name(accept)));
+            return new Token(dfa, accept, codes, pos, end - pos);
+        }
+        return null;
+    }
+
+    /**
+     * 编译模式下读取下一个Token，状态转换由生成的扫描器完成
+     *
+     * @return
+     */
+    private Token nextCompiledToken() {
+        while (index < codes.length) {
+            var pos = index;
+            var result = scanner.scan(codes, pos, codes.length);
+            var accept = (int) result;
+            var end = (int) (result >>> 32);
+            if (accept < 0) throw new RuntimeException(String.format("词法解析错误:%s", codes[pos]));
+            index = end;
+            if (dfa.skip(accept)) continue;
+            if (dfa.error(accept)) throw new RuntimeException(String.format("词法解析错误:%s", dfa.name(accept)));
+            return new Token(dfa, accept, codes, pos, end - pos);
+        }
+        return null;
+    }
+
+    private void parse() {
+        while (true) {
+            var token = nextToken();
+            if (Objects.isNull(token)) break;
+            log.info("{}", token);
+        }
+    }
+
+    /**
+     * 词法单元
+     */
+    public static class Token {
+        private Dfa dfa;
+        /**
+         * 规则序号
+         */
+        private int rule;
+        private char[] source;
+        private int offset;
+        private int length;
+
+        private Token(Dfa dfa, int rule, char[] source, int offset, int length) {
+            this.dfa = dfa;
+            this.rule = rule;
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Token类型，即规则名称
+         *
+         * @return
+         */
+        public String getTokenKind() {
+            return dfa.name(rule);
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public char[] getMorpheme() {
+            return Arrays.copyOfRange(source, offset, offset + length);
+        }
+
+        @Override
+        public String toString() {
+            return "Token{" +
+                    "morpheme:'" + new String(source, offset, length) + '\'' +
+                    ", tokenKind:" + getTokenKind() +
+                    '}';
+        }
+    }
+
+    /**
+     * DFA的执行方式
+     */
+    public enum Mode {
+        /**
+         * 逐字符查状态转换表
+         */
+        INTERPRETED,
+        /**
+         * 执行由DFA编译生成的字节码
+         */
+        COMPILED
+    }
+
+    public static void main(String[] agrs) {
+        var dfa = Dfa.generate(Spec.standard());
+        log.info("states:{}, classes:{}", dfa.states(), dfa.classes());
+        newLexer(dfa, "String str = \"Hello World\";" +
+                "int v1 = 100;" +
+                "boolean v2 = true").parse();
+    }
+}
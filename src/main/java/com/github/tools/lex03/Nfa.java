@@ -0,0 +1,303 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 由正则表达式经Thompson构造得到的非确定有穷自动机，
+ * 每条规则的终态记录规则的序号，所有规则共享一个初态
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 4:20 上午
+ */
+class Nfa {
+    /**
+     * 字符的取值范围
+     */
+    static final int MAX_CHAR = Character.MAX_VALUE;
+    private List<State> states = new ArrayList<>();
+    private int start;
+
+    /**
+     * 将所有规则构造为一个NFA
+     *
+     * @param spec
+     * @return
+     */
+    static Nfa build(Spec spec) {
+        var nfa = new Nfa();
+        nfa.start = nfa.newState();
+        var rules = spec.rules();
+        for (var i = 0; i < rules.size(); i++) {
+            var fragment = new Parser(nfa, rules.get(i).regex()).parse();
+            nfa.epsilon(nfa.start, fragment[0]);
+            nfa.states.get(fragment[1]).accept = i;
+        }
+        return nfa;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    State state(int i) {
+        return states.get(i);
+    }
+
+    private int newState() {
+        states.add(new State());
+        return states.size() - 1;
+    }
+
+    private void epsilon(int from, int to) {
+        states.get(from).epsilons.add(to);
+    }
+
+    /**
+     * 添加一条字符集转换，ranges为有序、不重叠的闭区间[lo,hi]序列
+     */
+    private void edge(int from, int[] ranges, int to) {
+        for (var i = 0; i < ranges.length; i += 2) {
+            states.get(from).edges.add(new int[]{ranges[i], ranges[i + 1], to});
+        }
+    }
+
+    static class State {
+        /**
+         * ε转换的目标状态
+         */
+        private List<Integer> epsilons = new ArrayList<>();
+        /**
+         * 字符转换，每个元素为{lo, hi, to}
+         */
+        private List<int[]> edges = new ArrayList<>();
+        /**
+         * 终态对应的规则序号，非终态为-1
+         */
+        private int accept = -1;
+
+        List<Integer> epsilons() {
+            return epsilons;
+        }
+
+        List<int[]> edges() {
+            return edges;
+        }
+
+        int accept() {
+            return accept;
+        }
+    }
+
+    /**
+     * 递归下降的正则表达式解析器，边解析边完成Thompson构造，
+     * 每个子表达式对应一个{初态, 终态}片段
+     */
+    private static class Parser {
+        private Nfa nfa;
+        private String regex;
+        private int index;
+
+        private Parser(Nfa nfa, String regex) {
+            this.nfa = nfa;
+            this.regex = regex;
+        }
+
+        private int[] parse() {
+            var fragment = alternation();
+            if (index < regex.length()) throw error();
+            return fragment;
+        }
+
+        /**
+         * alternation := concatenation ('|' concatenation)*
+         */
+        private int[] alternation() {
+            var fragment = concatenation();
+            if (!peek('|')) return fragment;
+            var start = nfa.newState();
+            var end = nfa.newState();
+            nfa.epsilon(start, fragment[0]);
+            nfa.epsilon(fragment[1], end);
+            while (peek('|')) {
+                index++;
+                fragment = concatenation();
+                nfa.epsilon(start, fragment[0]);
+                nfa.epsilon(fragment[1], end);
+            }
+            return new int[]{start, end};
+        }
+
+        /**
+         * concatenation := repetition*
+         */
+        private int[] concatenation() {
+            int[] fragment = null;
+            while (index < regex.length() && !peek('|') && !peek(')')) {
+                var next = repetition();
+                if (Objects.isNull(fragment)) {
+                    fragment = next;
+                } else {
+                    nfa.epsilon(fragment[1], next[0]);
+                    fragment = new int[]{fragment[0], next[1]};
+                }
+            }
+            if (Objects.nonNull(fragment)) return fragment;
+            var state = nfa.newState();//空串
+            return new int[]{state, state};
+        }
+
+        /**
+         * repetition := atom ('*' | '+' | '?')*
+         */
+        private int[] repetition() {
+            var fragment = atom();
+            while (peek('*') || peek('+') || peek('?')) {
+                var op = regex.charAt(index++);
+                var start = nfa.newState();
+                var end = nfa.newState();
+                nfa.epsilon(start, fragment[0]);
+                nfa.epsilon(fragment[1], end);
+                if (op != '+') nfa.epsilon(start, end);
+                if (op != '?') nfa.epsilon(fragment[1], fragment[0]);
+                fragment = new int[]{start, end};
+            }
+            return fragment;
+        }
+
+        /**
+         * atom := '(' alternation ')' | '[' set ']' | '.' | char
+         */
+        private int[] atom() {
+            var ch = regex.charAt(index++);
+            switch (ch) {
+                case '(':
+                    var fragment = alternation();
+                    if (!peek(')')) throw error();
+                    index++;
+                    return fragment;
+                case '[':
+                    return set(charSet());
+                case '.':
+                    return set(new int[]{0, MAX_CHAR});
+                case '*':
+                case '+':
+                case '?':
+                case ')':
+                    throw error();
+                default:
+                    var c = ch == '\\' ? escape() : ch;
+                    return set(new int[]{c, c});
+            }
+        }
+
+        private int[] set(int[] ranges) {
+            var start = nfa.newState();
+            var end = nfa.newState();
+            nfa.edge(start, ranges, end);
+            return new int[]{start, end};
+        }
+
+        /**
+         * 解析方括号中的字符集，返回有序、不重叠的闭区间序列
+         */
+        private int[] charSet() {
+            var negate = peek('^');
+            if (negate) index++;
+            var ranges = new ArrayList<int[]>();
+            while (!peek(']')) {
+                if (index >= regex.length()) throw error();
+                int lo = next();
+                int hi = lo;
+                if (peek('-') && index + 1 < regex.length() && regex.charAt(index + 1) != ']') {
+                    index++;
+                    hi = next();
+                    if (hi < lo) throw error();
+                }
+                ranges.add(new int[]{lo, hi});
+            }
+            index++;
+            ranges.sort((a, b) -> a[0] - b[0]);
+            var merged = new int[ranges.size() * 2];
+            var size = 0;
+            for (var range : ranges) {
+                if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], range[1]);
+                } else {
+                    merged[size++] = range[0];
+                    merged[size++] = range[1];
+                }
+            }
+            merged = Arrays.copyOf(merged, size);
+            return negate ? complement(merged) : merged;
+        }
+
+        private static int[] complement(int[] ranges) {
+            var result = new int[ranges.length + 2];
+            var size = 0;
+            var lo = 0;
+            for (var i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > lo) {
+                    result[size++] = lo;
+                    result[size++] = ranges[i] - 1;
+                }
+                lo = ranges[i + 1] + 1;
+            }
+            if (lo <= MAX_CHAR) {
+                result[size++] = lo;
+                result[size++] = MAX_CHAR;
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        private char next() {
+            var ch = regex.charAt(index++);
+            return ch == '\\' ? escape() : ch;
+        }
+
+        private char escape() {
+            if (index >= regex.length()) throw error();
+            var ch = regex.charAt(index++);
+            switch (ch) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                default:
+                    return ch;
+            }
+        }
+
+        private boolean peek(char ch) {
+            return index < regex.length() && regex.charAt(index) == ch;
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException(String.format("正则表达式解析错误:%s, index:%s", regex, index));
+        }
+    }
+}
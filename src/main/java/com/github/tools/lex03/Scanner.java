@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+/**
+ * 由DFA编译生成的扫描器，实现类在运行时由Compiler生成
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 6:20 上午
+ */
+interface Scanner {
+    /**
+     * 从index处开始按最长匹配原则识别一个词素
+     *
+     * @param codes
+     * @param index 起始索引
+     * @param limit 结束索引
+     * @return 高32位为词素的结束索引，低32位为接受的规则序号，没有匹配任何规则时为-1
+     */
+    long scan(char[] codes, int index, int limit);
+}
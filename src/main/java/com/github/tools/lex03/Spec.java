@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 词法规则定义，每条规则由Token名称和正则表达式组成。
+ * 同一个词素匹配多条规则时，先声明的规则优先，因此保留字需要声明在标识符之前
+ * <p>
+ * 正则表达式支持: 字面字符、转义(\t \n \r及其余字符原样)、.、[a-z]、[^...]、()、|、*、+、?
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/16 4:10 上午
+ */
+public class Spec {
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * 添加一条Token规则
+     *
+     * @param name
+     * @param regex
+     * @return
+     */
+    public Spec token(String name, String regex) {
+        return add(name, regex, false, false);
+    }
+
+    /**
+     * 添加一条跳过规则，匹配的词素不会生成Token，例如空白符
+     *
+     * @param name
+     * @param regex
+     * @return
+     */
+    public Spec skip(String name, String regex) {
+        return add(name, regex, true, false);
+    }
+
+    /**
+     * 添加一条错误规则，按最长匹配选中时分析器抛出词法错误，用于拒绝其他规则不完整的前缀，例如未闭合的注释
+     *
+     * @param name
+     * @param regex
+     * @return
+     */
+    public Spec error(String name, String regex) {
+        return add(name, regex, false, true);
+    }
+
+    private Spec add(String name, String regex, boolean skip, boolean error) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(regex);
+        rules.add(new Rule(name, regex, skip, error));
+        return this;
+    }
+
+    List<Rule> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * 与lex01、lex02的TokenKind一致的词法规则
+     *
+     * @return
+     */
+    public static Spec standard() {
+        return new Spec()
+                .token("INT", "int")
+                .token("TRUE", "true")
+                .token("FALSE", "false")
+                .token("BOOLEAN", "boolean")
+                .token("IDENTIFIER", "[a-zA-Z_$][a-zA-Z0-9_$]*")
+                .token("INTLITERAL", "[0-9]+")
+                .token("STRINGLITERAL", "\"[^\"\r\n]*\"")
+                .token("EQ", "=")
+                .token("SEMI", ";")
+                .token("LT", "<")
+                .token("GT", ">")
+                .token("EQEQ", "==")
+                .token("LTEQ", "<=")
+                .token("GTEQ", ">=")
+                .token("PLUS", "\\+")
+                .token("SUB", "-")
+                .token("STAR", "\\*")
+                .token("SLASH", "/")
+                .token("PLUSEQ", "\\+=")
+                .token("SUBEQ", "-=")
+                .token("STAREQ", "\\*=")
+                .token("SLASHEQ", "/=")
+                .token("BANG", "!")
+                .token("TILDE", "~")
+                .token("QUES", "\\?")
+                .token("COLON", ":")
+                .token("COLCOL", "::")
+                .token("ARROW", "->")
+                .token("BANGEQ", "!=")
+                .token("AMPAMP", "&&")
+                .token("BARBAR", "\\|\\|")
+                .token("PLUSPLUS", "\\+\\+")
+                .token("SUBSUB", "--")
+                .token("AMP", "&")
+                .token("BAR", "\\|")
+                .token("CARET", "^")
+                .token("PERCENT", "%")
+                .token("LTLT", "<<")
+                .token("GTGT", ">>")
+                .token("GTGTGT", ">>>")
+                .token("AMPEQ", "&=")
+                .token("BAREQ", "\\|=")
+                .token("CARETEQ", "^=")
+                .token("PERCENTEQ", "%=")
+                .token("LTLTEQ", "<<=")
+                .token("GTGTEQ", ">>=")
+                .token("GTGTGTEQ", ">>>=")
+                .token("MONKEYS_AT", "@")
+                .skip("BLANK", "[ \t\r\n]+")
+                .skip("LINE_COMMENT", "//[^\r\n]*")
+                .skip("BLOCK_COMMENT", "/\\*([^*]|\\*+[^*/])*\\*+/")
+                .error("UNTERMINATED_COMMENT", "/\\*([^*]|\\*+[^*/])*\\**");
+    }
+
+    static class Rule {
+        private String name;
+        private String regex;
+        /**
+         * 匹配后是否跳过
+         */
+        private boolean skip;
+        /**
+         * 匹配后是否抛出词法错误
+         */
+        private boolean error;
+
+        private Rule(String name, String regex, boolean skip, boolean error) {
+            this.name = name;
+            this.regex = regex;
+            this.skip = skip;
+            this.error = error;
+        }
+
+        String name() {
+            return name;
+        }
+
+        String regex() {
+            return regex;
+        }
+
+        boolean skip() {
+            return skip;
+        }
+
+        boolean error() {
+            return error;
+        }
+    }
+}
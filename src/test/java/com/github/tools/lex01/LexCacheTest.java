@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 词法行为的版本变化后，磁盘缓存中按旧版本保存的Token序列不能再被命中；
+ * 含词法错误的文件同样可以缓存，诊断信息随Token序列一起取回
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 11:30 上午
+ */
+public class LexCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void sameVersionHitsDisk() throws IOException {
+        var source = write("int a = 1;");
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION)) {
+            cache.lex(source);
+            assertEquals(1, cache.misses());
+        }
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION)) {
+            assertEquals(5, cache.lex(source).size());
+            assertEquals(1, cache.diskHits());
+            assertEquals(0, cache.misses());
+        }
+    }
+
+    @Test
+    public void changedVersionMisses() throws IOException {
+        var source = write("int a = 1;");
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION)) {
+            cache.lex(source);
+        }
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION + 1)) {
+            assertEquals(5, cache.lex(source).size());
+            assertEquals(0, cache.diskHits());
+            assertEquals(1, cache.misses());
+        }
+    }
+
+    @Test
+    public void cacheErrorsAndDiagnostics() throws IOException {
+        var str = "int a = 1;\nf(a); s = \"x";
+        var expected = new Lexer.Diagnostics();
+        var tokens = Lexer.newLexer(str).recover(expected).tokenize();
+        assertFalse(expected.isEmpty());
+        var source = write(str);
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION)) {
+            assertTokens(tokens, expected, cache, source);//解析
+            assertTokens(tokens, expected, cache, source);//内存命中
+            assertEquals(1, cache.misses());
+            assertEquals(1, cache.memoryHits());
+        }
+        try (var cache = new LexCache(directory, 1 << 20, Lexer.VERSION)) {
+            assertTokens(tokens, expected, cache, source);//磁盘命中
+            assertEquals(1, cache.diskHits());
+        }
+    }
+
+    private static void assertTokens(TokenBuffer tokens, Lexer.Diagnostics expected, LexCache cache, Path source) throws IOException {
+        var diagnostics = new Lexer.Diagnostics();
+        var reader = cache.lex(source, diagnostics);
+        assertEquals(expected.toString(), diagnostics.toString());
+        assertEquals(tokens.size(), reader.size());
+        for (var i = 0; reader.next(); i++) {
+            assertEquals(tokens.kind(i), reader.kind());
+            assertEquals(tokens.start(i), reader.start());
+            assertEquals(tokens.length(i), reader.length());
+        }
+    }
+
+    private Path write(String str) throws IOException {
+        return Files.writeString(directory.resolve("source.txt"), str);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 保留字的完美哈希表
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 4:00 下午
+ */
+public class LexerSpecTest {
+    private static final String[] JAVA_KEYWORDS = {
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null", "var", "yield", "record", "sealed", "permits"
+    };
+
+    @Test
+    public void separateKeywordsSharingFirstLastCharAndLength() {
+        //package和private的首尾字符及长度都相同
+        var keywords = Arrays.stream(JAVA_KEYWORDS).map(String::toCharArray).toArray(char[][]::new);
+        var found = LexerSpec.search(keywords);
+        var slots = new HashSet<Integer>();
+        for (var keyword : keywords) {
+            slots.add(LexerSpec.slot(LexerSpec.hash(keyword, 0, keyword.length), found[1], found[0] - 1));
+        }
+        assertEquals(keywords.length, slots.size());
+    }
+
+    @Test
+    public void failFastOnCollidingHashes() {
+        //"Aa"和"BB"的哈希值相同
+        var e = assertThrows(IllegalStateException.class, () ->
+                LexerSpec.search(new char[][]{"if".toCharArray(), "Aa".toCharArray(), "BB".toCharArray()}));
+        assertTrue(e.getMessage().contains("Aa") && e.getMessage().contains("BB"), e.getMessage());
+    }
+
+    @Test
+    public void lookupDefaultKeywords() {
+        for (var word : new String[]{"int", "true", "false", "boolean"}) {
+            assertEquals(word, lookup(word).name);
+        }
+        for (var word : new String[]{"in", "integer", "tru", "Int", "bool"}) {
+            assertNull(lookup(word), word);
+        }
+    }
+
+    private static Lexer.TokenKind lookup(String word) {
+        var buf = ("  " + word).toCharArray();
+        return LexerSpec.DEFAULT.lookup(buf, 2, word.length(), LexerSpec.hash(buf, 2, word.length()));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 偏移量到行号、列号的换算，以及超出输入范围的偏移量
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 11:10 下午
+ */
+public class LineIndexTest {
+    @Test
+    public void lineSeparators() {
+        var lines = LineIndex.of("a\nbc\r\nd\re");
+        assertEquals(4, lines.lines());
+        assertEquals("1:1", lines.position(0));
+        assertEquals("1:2", lines.position(1));
+        assertEquals("2:2", lines.position(3));
+        assertEquals("2:3", lines.position(4));//CRLF只算一次换行
+        assertEquals("3:1", lines.position(6));
+        assertEquals("4:1", lines.position(8));
+        assertEquals("4:2", lines.position(9));//结束位置
+        assertEquals(3, lines.line(7));
+        assertEquals(2, lines.column(7));
+        assertEquals(6, lines.lineStart(3));
+        assertEquals(1, LineIndex.of("").lines());
+    }
+
+    @Test
+    public void rejectOutOfRange() {
+        var lines = LineIndex.of("a\nb");
+        for (var offset : new long[]{-1, 4, Integer.MAX_VALUE, 1L << 32, (1L << 32) + 1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertThrows(IndexOutOfBoundsException.class, () -> lines.line(offset), String.valueOf(offset));
+            assertThrows(IndexOutOfBoundsException.class, () -> lines.column(offset), String.valueOf(offset));
+            assertThrows(IndexOutOfBoundsException.class, () -> lines.position(offset), String.valueOf(offset));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.lineStart(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.lineStart(3));
+    }
+
+    @Test
+    public void diagnosticsPosition() {
+        var str = "a = 1;\nb = \"x";
+        var diagnostics = new Lexer.Diagnostics();
+        Lexer.newLexer(str).recover(diagnostics).tokenize();
+        assertEquals(1, diagnostics.size());
+        assertEquals("Diagnostics{未闭合的字符串@2:5, dropped:0}", diagnostics.toString(LineIndex.of(str)));
+    }
+}
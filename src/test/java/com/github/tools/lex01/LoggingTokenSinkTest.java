@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志输出失败时词法分析线程和close()都不能被永久阻塞
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 9:20 下午
+ */
+public class LoggingTokenSinkTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 调用info()时抛出指定异常的Logger
+     *
+     * @param failure
+     * @return
+     */
+    private static Logger failing(Throwable failure) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "info":
+                    throw failure;
+                case "getName":
+                    return "failing";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "failing";
+                default:
+                    return method.getReturnType() == boolean.class ? true : null;
+            }
+        });
+    }
+
+    @Test
+    public void countFailuresAndKeepRecycling() {
+        var count = 1000;
+        var sink = new LoggingTokenSink(failing(new IllegalStateException("appender")), 3, 2);
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (var i = 0; i < count; i++) {
+                sink.accept(Lexer.TokenKind.IDENTIFIER, i, 1);
+            }
+            sink.flush();
+            sink.close();
+        });
+        assertEquals(count, sink.failures());
+    }
+
+    @Test
+    public void writerDeathFailsProducer() {
+        var sink = new LoggingTokenSink(failing(new StackOverflowError()), 3, 2);
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class, () -> {
+            for (var i = 0; ; i++) {
+                sink.accept(Lexer.TokenKind.IDENTIFIER, i, 1);
+            }
+        }));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数字字面值的切分、进制、下划线、溢出，以及浮点数快速路径与Double.parseDouble()的一致性
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 9:50 下午
+ */
+public class NumberLiteralTest {
+    /**
+     * 错误恢复模式下读取全部Token，输入必须只包含一个数字字面值
+     *
+     * @param str
+     * @param diagnostics
+     * @return
+     */
+    private static Lexer.Token lex(String str, Lexer.Diagnostics diagnostics) {
+        var lexer = Lexer.newLexer(str).recover(diagnostics);
+        List<Lexer.Token> tokens = new ArrayList<>();
+        for (var token = lexer.nextToken(); token != null; token = lexer.nextToken()) {
+            tokens.add(token);
+        }
+        assertEquals(1, tokens.size(), str);
+        assertEquals(str.length(), tokens.get(0).getLength(), str);
+        return tokens.get(0);
+    }
+
+    private static void assertLong(long expected, String str) {
+        var token = lex(str, new Lexer.Diagnostics());
+        assertEquals(Lexer.TokenKind.INTLITERAL, token.getTokenKind(), str);
+        assertEquals(expected, token.getLongValue(), str);
+    }
+
+    private static void assertDouble(String str) {
+        var token = lex(str, new Lexer.Diagnostics());
+        assertEquals(Lexer.TokenKind.FLOATLITERAL, token.getTokenKind(), str);
+        var expected = Double.parseDouble(str.replace("_", ""));
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(token.getDoubleValue()), str);
+    }
+
+    private static void assertError(Lexer.Diagnostics.Code code, String str) {
+        var diagnostics = new Lexer.Diagnostics();
+        assertEquals(Lexer.TokenKind.ERROR, lex(str, diagnostics).getTokenKind(), str);
+        assertEquals(1, diagnostics.size(), str);
+        assertEquals(code, diagnostics.code(0), str);
+        assertThrows(RuntimeException.class, () -> Lexer.newLexer(str).tokenize(), str);
+    }
+
+    @Test
+    public void leadingZero() {
+        assertLong(0, "0");
+        assertLong(0, "00");
+        assertLong(15, "017");
+        assertLong(7, "0_7");
+        assertLong(Long.MAX_VALUE, "0777777777777777777777");
+        assertLong(-1, "01777_777777777777777777");
+        assertDouble("09.5");
+        assertDouble("00.5");
+        assertDouble("0.5");
+        assertDouble("0_9.5");
+        assertDouble("01e3");
+        assertDouble("09E-1");
+        assertDouble("0e0");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "09");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0_8");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "07_");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "02000000000000000000000");
+    }
+
+    @Test
+    public void radixPrefix() {
+        assertLong(31, "0x1F");
+        assertLong(31, "0X1_f");
+        assertLong(-1, "0xFFFF_FFFF_FFFF_FFFF");
+        assertLong(Long.MIN_VALUE, "0x8000000000000000");
+        assertLong(5, "0b101");
+        assertLong(5, "0B1__01");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0x_1");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0b_1");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0x1_");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0x");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "0b102");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "0x1_0000_0000_0000_0000");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "0b1" + "0".repeat(64));
+    }
+
+    @Test
+    public void decimal() {
+        assertLong(12, "1__2");
+        assertLong(Long.MAX_VALUE, "9223372036854775807");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "9223372036854775808");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1_");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1._5");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1.5_");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1e");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1e_5");
+        assertError(Lexer.Diagnostics.Code.MALFORMED_NUMBER, "1e5_");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "1e309");
+        assertError(Lexer.Diagnostics.Code.NUMBER_OVERFLOW, "1" + "0".repeat(309) + ".0");
+        assertDouble("1_000.000_1");
+        assertDouble("1.7976931348623157e308");
+        assertDouble("4.9e-324");
+        assertDouble("1e-400");
+    }
+
+    /**
+     * 有效数字不超过2^53且指数绝对值不超过22时走快速路径，两侧紧邻的取值交给Double.parseDouble()
+     */
+    @Test
+    public void fastPathBoundary() {
+        assertDouble("9007199254740992e22");
+        assertDouble("9007199254740993e22");
+        assertDouble("9007199254740992e-22");
+        assertDouble("9007199254740993e-22");
+        assertDouble("9007199254740992e23");
+        assertDouble("1e22");
+        assertDouble("1e23");
+        assertDouble("1e-22");
+        assertDouble("1e-23");
+        assertDouble("0.1");
+        assertDouble("123456789012345678901234567890.5");
+        assertDouble("100000000000000000000000.0");
+        assertDouble("0." + "0".repeat(30) + "1");
+        var random = new Random(19);
+        for (var i = 0; i < 20000; i++) {
+            var digits = new StringBuilder().append(1 + random.nextInt(9));
+            for (var n = random.nextInt(20); n > 0; n--) {
+                digits.append(random.nextInt(10));
+            }
+            var point = random.nextInt(digits.length() + 1);
+            digits.insert(point, '.');
+            if (point == 0) digits.insert(0, '0');
+            if (point == digits.length() - 1) digits.append('0');
+            assertDouble(digits.append('e').append(random.nextInt(61) - 30).toString());
+        }
+    }
+}
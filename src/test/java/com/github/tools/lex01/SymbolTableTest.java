@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 符号表的CLOCK淘汰、符号ID复用以及计数器
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 10:30 下午
+ */
+public class SymbolTableTest {
+    /**
+     * 源码只包含一个标识符，返回其符号ID
+     *
+     * @param symbolTable
+     * @param identifier
+     * @return
+     */
+    private static int symbol(Lexer.SymbolTable symbolTable, String identifier) {
+        var tokens = Lexer.newLexer(identifier, symbolTable).tokenize();
+        assertEquals(1, tokens.size());
+        assertEquals(Lexer.TokenKind.IDENTIFIER, tokens.kind(0));
+        return tokens.symbol(0);
+    }
+
+    @Test
+    public void clockEviction() {
+        var symbolTable = new Lexer.SymbolTable(3);
+        assertEquals(0, symbol(symbolTable, "a"));
+        assertEquals(1, symbol(symbolTable, "b"));
+        assertEquals(2, symbol(symbolTable, "c"));
+        assertEquals(0, symbolTable.evictions());
+        assertEquals(0, symbol(symbolTable, "a"));//命中，a获得第二次机会
+        assertEquals(1, symbol(symbolTable, "d"));//跳过a，淘汰b并复用其ID
+        assertEquals(2, symbol(symbolTable, "b"));//淘汰c
+        assertEquals(0, symbol(symbolTable, "a"));
+        assertEquals(1, symbol(symbolTable, "c"));//再次跳过a，淘汰d
+        assertEquals(3, symbolTable.size());
+        assertEquals(3, symbolTable.capacity());
+        assertEquals(2, symbolTable.hits());
+        assertEquals(6, symbolTable.misses());
+        assertEquals(3, symbolTable.evictions());
+    }
+
+    @Test
+    public void idsStayWithinCapacity() {
+        var capacity = 20;
+        var symbolTable = new Lexer.SymbolTable(capacity);
+        var count = 100_000;
+        var str = IntStream.range(0, count).mapToObj(i -> "v" + i).collect(Collectors.joining(" "));
+        var tokens = Lexer.newLexer(str, symbolTable).tokenize();
+        for (var i = 0; i < count; i++) {
+            var symbol = tokens.symbol(i);
+            assertTrue(symbol >= 0 && symbol < capacity, String.valueOf(symbol));
+            if (i < capacity) assertEquals(i, symbol);
+        }
+        assertEquals(capacity, symbolTable.size());
+        assertEquals(count, symbolTable.misses());
+        assertEquals(count - capacity, symbolTable.evictions());
+        assertEquals(0, symbolTable.hits());
+    }
+
+    @Test
+    public void slotsGrowLazily() {
+        var symbolTable = new Lexer.SymbolTable(Integer.MAX_VALUE);//按容量预先分配时会耗尽内存
+        for (var i = 0; i < 1000; i++) {
+            assertEquals(i, symbol(symbolTable, "v" + i));
+        }
+        assertEquals(1000, symbolTable.size());
+        assertEquals(0, symbolTable.evictions());
+        assertEquals(Integer.MAX_VALUE, symbolTable.capacity());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数字字面值的数值保存在独立的列中，与符号ID共用同一个下标列
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 4:40 下午
+ */
+public class TokenBufferTest {
+    @Test
+    public void numbersAndSymbolsShareIndexColumn() {
+        var tokens = new TokenBuffer(1);//从最小容量开始，覆盖扩容
+        var count = 100;
+        for (var i = 0; i < count; i++) {
+            tokens.add(Lexer.TokenKind.IDENTIFIER, i * 4, 1, i % 7, 0);
+            tokens.add(Lexer.TokenKind.INTLITERAL, i * 4 + 1, 1, TokenBuffer.NO_SYMBOL, -i);
+            tokens.add(Lexer.TokenKind.FLOATLITERAL, i * 4 + 2, 1, TokenBuffer.NO_SYMBOL, Double.doubleToRawLongBits(i + 0.5));
+            tokens.add(Lexer.TokenKind.SEMI, i * 4 + 3, 1, TokenBuffer.NO_SYMBOL, 0);
+        }
+        assertEquals(count * 4, tokens.size());
+        for (var i = 0; i < count; i++) {
+            assertEquals(i % 7, tokens.symbol(i * 4));
+            assertEquals(TokenBuffer.NO_SYMBOL, tokens.symbol(i * 4 + 1));
+            assertEquals(-i, tokens.longValue(i * 4 + 1));
+            assertEquals(-i, tokens.doubleValue(i * 4 + 1));
+            assertEquals(TokenBuffer.NO_SYMBOL, tokens.symbol(i * 4 + 2));
+            assertEquals(i + 0.5, tokens.doubleValue(i * 4 + 2));
+            assertEquals(TokenBuffer.NO_SYMBOL, tokens.symbol(i * 4 + 3));
+            assertEquals(i * 4 + 3, tokens.start(i * 4 + 3));
+            assertEquals(i * 4 + 4, tokens.end(i * 4 + 3));
+        }
+    }
+
+    @Test
+    public void rejectWrongAccessors() {
+        var tokens = new TokenBuffer();
+        tokens.add(Lexer.TokenKind.FLOATLITERAL, 0, 3, TokenBuffer.NO_SYMBOL, Double.doubleToRawLongBits(1.5));
+        tokens.add(Lexer.TokenKind.IDENTIFIER, 4, 1, 0, 0);
+        assertThrows(IllegalStateException.class, () -> tokens.longValue(0));
+        assertThrows(IllegalStateException.class, () -> tokens.doubleValue(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.kind(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.kind(-1));
+    }
+
+    @Test
+    public void clearReusesColumns() {
+        var tokens = new TokenBuffer();
+        tokens.add(Lexer.TokenKind.INTLITERAL, 0, 1, TokenBuffer.NO_SYMBOL, 7);
+        tokens.clear();
+        assertEquals(0, tokens.size());
+        tokens.add(Lexer.TokenKind.INTLITERAL, 0, 1, TokenBuffer.NO_SYMBOL, 9);
+        assertEquals(9, tokens.longValue(0));
+    }
+
+    @Test
+    public void tokenizeMatchesNextToken() {
+        var str = "int a = 1; a += 0x1F; b = 2.5e3; String s = \"a\"; a = b;";
+        var tokens = Lexer.newLexer(str).tokenize();
+        var lexer = Lexer.newLexer(str);
+        var i = 0;
+        for (var token = lexer.nextToken(); token != null; token = lexer.nextToken(), i++) {
+            assertEquals(token.getTokenKind(), tokens.kind(i));
+            assertEquals(token.getOffset(), tokens.start(i));
+            assertEquals(token.getLength(), tokens.length(i));
+            if (token.getTokenKind() == Lexer.TokenKind.INTLITERAL) assertEquals(token.getLongValue(), tokens.longValue(i));
+            if (token.getTokenKind().isNumber()) assertEquals(token.getDoubleValue(), tokens.doubleValue(i));
+        }
+        assertEquals(i, tokens.size());
+        assertEquals(tokens.symbol(1), tokens.symbol(5));//同一个标识符的符号ID相同
+        assertEquals(Lexer.TokenKind.IDENTIFIER, tokens.kind(9));
+        assertNotEquals(tokens.symbol(1), tokens.symbol(9));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex01;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编码后再解码必须得到相同的Token序列
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 5:10 下午
+ */
+public class TokenWriterTest {
+    private static final long[] LONGS = {0, 1, -1, 63, 64, -64, -65, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+    private static final double[] DOUBLES = {0.0, -0.0, 1.5, -2.5e300, Double.MIN_VALUE, Double.MAX_VALUE,
+            Double.NaN, Double.NEGATIVE_INFINITY};
+
+    @Test
+    public void roundTripEveryKind() {
+        var source = new StringBuilder();
+        var tokens = new TokenBuffer();
+        for (var kind : Lexer.TokenKind.values()) {
+            if (Objects.nonNull(kind.name)) {
+                add(tokens, source, kind, kind.name, 0);
+            } else if (kind == Lexer.TokenKind.INTLITERAL) {
+                for (var value : LONGS) add(tokens, source, kind, Long.toString(value), value);
+            } else if (kind == Lexer.TokenKind.FLOATLITERAL) {
+                for (var value : DOUBLES) add(tokens, source, kind, Double.toString(value), Double.doubleToRawLongBits(value));
+            } else {
+                //字典中的词素包含重复项和非ASCII字符
+                for (var morpheme : new String[]{"a", "变量", "a", kind.toString()}) {
+                    add(tokens, source, kind, morpheme, 0);
+                }
+            }
+        }
+        //起始位置可以回退，间距以zigzag编码
+        tokens.add(Lexer.TokenKind.IDENTIFIER, 0, 1, TokenBuffer.NO_SYMBOL, 0);
+        assertRoundTrip(tokens, source);
+    }
+
+    @Test
+    public void roundTripLexedSource() {
+        var str = "int a = 1; String s = \"你好\"; boolean b = a >>>= 0x7FFFFFFFFFFFFFFF; double d = 1e-5; a = b ? s : @;";
+        var tokens = Lexer.newLexer(str).recover(new Lexer.Diagnostics()).tokenize();
+        assertRoundTrip(tokens, str);
+    }
+
+    @Test
+    public void writeAndOpen(@TempDir Path directory) throws IOException {
+        var str = "int a = 100; a += a;";
+        var tokens = Lexer.newLexer(str).tokenize();
+        var path = directory.resolve("a.tok");
+        TokenWriter.write(tokens, str, path);
+        assertSame(TokenReader.open(path), tokens, str);
+    }
+
+    private static void add(TokenBuffer tokens, StringBuilder source, Lexer.TokenKind kind, String morpheme, long value) {
+        tokens.add(kind, source.length(), morpheme.length(), TokenBuffer.NO_SYMBOL, value);
+        source.append(morpheme).append(' ');
+    }
+
+    private static void assertRoundTrip(TokenBuffer tokens, CharSequence source) {
+        var reader = TokenReader.of(TokenWriter.encode(tokens, source));
+        assertSame(reader, tokens, source);
+        reader.rewind();
+        assertSame(reader, tokens, source);
+    }
+
+    private static void assertSame(TokenReader reader, TokenBuffer tokens, CharSequence source) {
+        assertEquals(tokens.size(), reader.size());
+        for (var i = 0; i < tokens.size(); i++) {
+            assertTrue(reader.next());
+            var kind = tokens.kind(i);
+            assertEquals(kind, reader.kind(), "token:" + i);
+            assertEquals(tokens.start(i), reader.start(), "token:" + i);
+            assertEquals(tokens.length(i), reader.length(), "token:" + i);
+            if (kind == Lexer.TokenKind.INTLITERAL) {
+                assertEquals(tokens.longValue(i), reader.longValue(), "token:" + i);
+            } else if (kind == Lexer.TokenKind.FLOATLITERAL) {
+                assertEquals(Double.doubleToRawLongBits(tokens.doubleValue(i)),
+                        Double.doubleToRawLongBits(reader.doubleValue()), "token:" + i);
+            } else {
+                assertEquals(source.subSequence(tokens.start(i), tokens.end(i)).toString(), reader.morpheme(), "token:" + i);
+            }
+        }
+        assertFalse(reader.next());
+    }
+}
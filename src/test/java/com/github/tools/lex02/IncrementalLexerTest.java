@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex02;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 逐字符编辑后的Token序列必须与重新完整分析的结果一致
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 10:20 上午
+ */
+public class IncrementalLexerTest {
+    private static final String BASE = "a = 1;\nb = 2;\n";
+    private static final String TYPED = "s = \"x y\";\n/* c * d */ e = 3; // f\n";
+
+    @Test
+    public void typeCharByChar() {
+        var lexer = new IncrementalLexer(BASE);
+        var offset = BASE.indexOf('b');
+        for (var i = 0; i < TYPED.length(); i++) {
+            lexer.edit(offset + i, 0, TYPED.substring(i, i + 1));
+            assertRelexed(lexer);
+        }
+        assertEquals(BASE.substring(0, offset) + TYPED + BASE.substring(offset), lexer.toString());
+    }
+
+    @Test
+    public void deleteCharByChar() {
+        var offset = BASE.indexOf('b');
+        var lexer = new IncrementalLexer(BASE.substring(0, offset) + TYPED + BASE.substring(offset));
+        for (var i = 0; i < TYPED.length(); i++) {
+            lexer.edit(offset, 1, "");
+            assertRelexed(lexer);
+        }
+        assertEquals(BASE, lexer.toString());
+    }
+
+    @Test
+    public void unterminatedString() {
+        var lexer = new IncrementalLexer(BASE);
+        lexer.edit(0, 0, "\"");
+        assertRelexed(lexer);
+        assertEquals(Lexer.TokenKind.ERROR, lexer.kind(0));
+        assertEquals(Lexer.Diagnostics.Code.UNTERMINATED_STRING, lexer.diagnostics().code(0));
+    }
+
+    @Test
+    public void unterminatedComment() {
+        var lexer = new IncrementalLexer(BASE);
+        lexer.edit(0, 0, "/*");
+        assertRelexed(lexer);
+        assertEquals(1, lexer.size());//未闭合的注释覆盖到文本末尾
+        assertEquals(Lexer.TokenKind.ERROR, lexer.kind(0));
+        assertEquals(BASE.length() + 2, lexer.length(0));
+        assertEquals(Lexer.Diagnostics.Code.UNTERMINATED_COMMENT, lexer.diagnostics().code(0));
+        lexer.edit(BASE.indexOf('b') + 2, 0, "*/");
+        assertRelexed(lexer);
+        assertEquals(Lexer.TokenKind.IDENTIFIER, lexer.kind(0));
+        assertEquals(0, lexer.diagnostics().size());
+    }
+
+    @Test
+    public void editAtScatteredOffsets() {
+        var random = new Random(7);
+        var lexer = new IncrementalLexer(BASE.repeat(64));
+        for (var i = 0; i < 500; i++) {
+            var length = lexer.toString().length();
+            var offset = random.nextInt(length + 1);
+            var removed = Math.min(random.nextInt(4), length - offset);
+            var inserted = TYPED.substring(random.nextInt(TYPED.length()));
+            lexer.edit(offset, removed, inserted.substring(0, Math.min(inserted.length(), random.nextInt(8))));
+            assertRelexed(lexer);
+        }
+    }
+
+    private static void assertRelexed(IncrementalLexer lexer) {
+        var text = lexer.toString();
+        var expected = Lexer.newLexer(text).recover(new Lexer.Diagnostics());
+        var i = 0;
+        for (var token = expected.nextToken(); Objects.nonNull(token); token = expected.nextToken(), i++) {
+            assertEquals(token.getTokenKind(), lexer.kind(i), text);
+            assertEquals(token.getOffset(), lexer.offset(i), text);
+            assertEquals(token.getLength(), lexer.length(i), text);
+        }
+        assertEquals(i, lexer.size(), text);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex02;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 字符数组、内存映射文件和可编辑文本共用同一份扫描循环，三者的分析结果必须一致
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 6:10 下午
+ */
+public class LexerTest {
+    private static final String[] PARTS = {
+            "int ", "x1", " ", "=", "==", ";", "\n", "\r", "\t", "\"a b\"", "\"", "123", "+=", ">>>=", "<",
+            "/", "*", "/*", "*/", "//", "#"
+    };
+
+    @Test
+    public void sourcesAgree(@TempDir Path directory) throws IOException {
+        var random = new Random(3);
+        var path = directory.resolve("a.txt");
+        for (var round = 0; round < 2000; round++) {
+            var builder = new StringBuilder();
+            for (var i = random.nextInt(30); i > 0; i--) builder.append(PARTS[random.nextInt(PARTS.length)]);
+            var str = builder.toString();
+            Files.writeString(path, str);
+            assertEquals(lex(Lexer.newLexer(str)), lex(Lexer.newLexer(path)), str);
+            var expected = new Lexer.Diagnostics();
+            var actual = new Lexer.Diagnostics();
+            var tokens = lex(Lexer.newLexer(str).recover(expected));
+            assertEquals(tokens, lex(Lexer.newLexer(path).recover(actual)), str);
+            assertEquals(tokens, lex(new Lexer(new Lexer.Text(str), 0).recover(new Lexer.Diagnostics())), str);
+            assertEquals(expected.toString(), actual.toString(), str);
+        }
+    }
+
+    private static String lex(Lexer lexer) {
+        var builder = new StringBuilder();
+        try {
+            for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+                builder.append(token.getTokenKind()).append('@').append(token.getOffset())
+                        .append(':').append(token.getMorpheme()).append(' ');
+            }
+        } catch (RuntimeException e) {
+            builder.append(e.getMessage());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex02;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 并行分析的结果必须与串行调用nextToken()完全一致，切分点落在字符串或注释内部时也不例外
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 3:10 下午
+ */
+public class ParallelLexerTest {
+    private static final String[] PARTS = {
+            "int v = 1;\n", "boolean b = v <= 2;", "s = \"a; b\n", "s = \"c; d; e\";", "/* f;\n g; */",
+            "// h; i\n", "t = v >>>= 3;", " ", "\t", "x /= y;\n", "/**/;", "\"\";"
+    };
+
+    @Test
+    public void splitInsideStringsAndComments() {
+        //切分点之前很长一段没有换行符和';'，切分点都落在字符串或注释内部，
+        //从字符串内部开始分析的块会把"/*"之后的真实Token当作注释跳过
+        var str = ("s = " + "a + ".repeat(40) + "\"p; /* q\";\n t = 1; */ u;\n" +
+                "t = \"p; q;\" + /* r;\n s; */ u // v; w\n + z;").repeat(5000);
+        assertSerial(str, 2);
+        assertSerial(str, 4);
+        assertSerial(str, 7);
+    }
+
+    @Test
+    public void randomText() {
+        var random = new Random(17);
+        for (var round = 0; round < 4; round++) {
+            var builder = new StringBuilder();
+            while (builder.length() < 1 << 20) {
+                var part = PARTS[random.nextInt(PARTS.length)];
+                if (part.startsWith("s = \"a")) part = "s = \"a; b\";\n";//未闭合的字符串只在单独的用例中出现
+                builder.append(part);
+            }
+            assertSerial(builder.toString(), 2 + round * 2);
+        }
+    }
+
+    @Test
+    public void lexicalErrorStillThrows() {
+        var str = "int v = 1;\n".repeat(40000) + "s = \"a; b\n" + "int v = 1;\n".repeat(40000);
+        assertThrows(RuntimeException.class, () -> serial(str));
+        assertThrows(RuntimeException.class, () -> ParallelLexer.lex(str, new ForkJoinPool(4)));
+    }
+
+    private static void assertSerial(String str, int parallelism) {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            var expected = serial(str);
+            var actual = ParallelLexer.lex(str, pool);
+            assertEquals(expected.size(), actual.size());
+            for (var i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), describe(actual.get(i)), "token:" + i);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> serial(String str) {
+        var result = new ArrayList<String>();
+        var lexer = Lexer.newLexer(str);
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            result.add(describe(token));
+        }
+        return result;
+    }
+
+    private static String describe(Lexer.Token token) {
+        return token.getTokenKind() + "@" + token.getOffset() + "+" + token.getLength();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2119 gao_xianglong@sina.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tools.lex03;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 3种词法分析器对注释的处理必须一致，未闭合的注释都要拒绝，
+ * 错误恢复模式下未闭合的注释记录为一直延伸到输入结束的ERROR类型Token
+ *
+ * @author gao_xianglong@sina.com
+ * @version 0.1-SNAPSHOT
+ * @date created in 2026/10/17 1:40 下午
+ */
+public class CommentAgreementTest {
+    private static final Dfa DFA = Dfa.generate(Spec.standard());
+
+    @Test
+    public void rejectUnterminatedComment() {
+        for (var str : new String[]{"a /* b", "/* * /"}) {
+            assertThrows(RuntimeException.class, () -> lex01(str), str);
+            assertThrows(RuntimeException.class, () -> lex02(str), str);
+            assertThrows(RuntimeException.class, () -> lex03(str, Lexer.Mode.INTERPRETED), str);
+            assertThrows(RuntimeException.class, () -> lex03(str, Lexer.Mode.COMPILED), str);
+        }
+    }
+
+    @Test
+    public void skipTerminatedComment() {
+        for (var str : new String[]{"a /* b */ c", "/* * */ x = 1; // y", "p /** q **/ / r"}) {
+            var expected = lex01(str);
+            assertEquals(expected, lex02(str), str);
+            assertEquals(expected, lex03(str, Lexer.Mode.INTERPRETED), str);
+            assertEquals(expected, lex03(str, Lexer.Mode.COMPILED), str);
+        }
+    }
+
+    @Test
+    public void recoverUnterminatedComment() {
+        var prefix = "x = 1; " + "y; ".repeat(100);//流式读取时注释跨越多次窗口填充
+        for (var str : new String[]{"a /* b", "/* * /", "a /*", prefix + "/* c\n d; " + "e ".repeat(100)}) {
+            var start = str.indexOf("/*");
+            var expected = lex01(str.substring(0, start));
+            expected.add("ERROR@" + start + ":" + str.substring(start));
+            var diagnostics01 = new com.github.tools.lex01.Lexer.Diagnostics();
+            assertEquals(expected, recover01(com.github.tools.lex01.Lexer.newLexer(str).recover(diagnostics01)), str);
+            assertEquals(1, diagnostics01.size(), str);
+            assertEquals(com.github.tools.lex01.Lexer.Diagnostics.Code.UNTERMINATED_COMMENT, diagnostics01.code(0), str);
+            assertEquals(start, diagnostics01.offset(0), str);
+            assertEquals(str.length() - start, diagnostics01.length(0), str);
+            var streaming = com.github.tools.lex01.Lexer.newLexer(new StringReader(str), 16);
+            assertEquals(expected, recover01(streaming.recover(new com.github.tools.lex01.Lexer.Diagnostics())), str);
+            var diagnostics02 = new com.github.tools.lex02.Lexer.Diagnostics();
+            var lexer02 = com.github.tools.lex02.Lexer.newLexer(str).recover(diagnostics02);
+            var actual = new ArrayList<String>();
+            for (var token = lexer02.nextToken(); Objects.nonNull(token); token = lexer02.nextToken()) {
+                actual.add(token.getTokenKind() == com.github.tools.lex02.Lexer.TokenKind.ERROR ?
+                        "ERROR@" + token.getOffset() + ":" + new String(token.getMorpheme()) : token.getTokenKind() + "@" + token.getOffset());
+            }
+            assertEquals(expected, actual, str);
+            assertEquals(diagnostics01.toString(), diagnostics02.toString(), str);
+        }
+    }
+
+    /**
+     * ERROR类型的Token附带词素，用于检查其覆盖的范围
+     *
+     * @param lexer
+     * @return
+     */
+    private static List<String> recover01(com.github.tools.lex01.Lexer lexer) {
+        var result = new ArrayList<String>();
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            result.add(token.getTokenKind() == com.github.tools.lex01.Lexer.TokenKind.ERROR ?
+                    "ERROR@" + token.getOffset() + ":" + new String(token.getMorpheme()) : token.getTokenKind() + "@" + token.getOffset());
+        }
+        return result;
+    }
+
+    private static List<String> lex01(String str) {
+        var result = new ArrayList<String>();
+        var lexer = com.github.tools.lex01.Lexer.newLexer(str);
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            result.add(token.getTokenKind() + "@" + token.getOffset());
+        }
+        return result;
+    }
+
+    private static List<String> lex02(String str) {
+        var result = new ArrayList<String>();
+        var lexer = com.github.tools.lex02.Lexer.newLexer(str);
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            result.add(token.getTokenKind() + "@" + token.getOffset());
+        }
+        return result;
+    }
+
+    private static List<String> lex03(String str, Lexer.Mode mode) {
+        var result = new ArrayList<String>();
+        var lexer = Lexer.newLexer(DFA, str, mode);
+        for (var token = lexer.nextToken(); Objects.nonNull(token); token = lexer.nextToken()) {
+            result.add(token.getTokenKind() + "@" + token.getOffset());
+        }
+        return result;
+    }
+}